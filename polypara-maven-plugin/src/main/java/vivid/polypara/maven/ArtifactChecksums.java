@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Checksums of artifact files, and the checksum files that repositories keep alongside
+ * them.
+ */
+class ArtifactChecksums {
+
+    static final String SHA1 = "SHA-1";
+
+    static final String MD5 = "MD5";
+
+    /**
+     * Artifact property holding the SHA-1 of an artifact file found to match its checksum
+     * file, so that it needn't be computed again.
+     */
+    static final String VERIFIED_SHA1_ARTIFACT_PROPERTY = "vivid.polypara.verified-sha1";
+
+    private static final Pattern SHA1_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    private ArtifactChecksums() {
+        // Hide the public constructor
+    }
+
+    static Path sidecarOf(
+            final File file,
+            final String algorithm
+    ) {
+        return file.toPath().resolveSibling(
+                file.getName() + (SHA1.equals(algorithm) ? ".sha1" : ".md5")
+        );
+    }
+
+    /**
+     * @return the checksum held in the file's {@code .sha1} or {@code .md5} checksum file,
+     *   if there is one holding a well-formed checksum
+     */
+    static Option<String> sidecar(
+            final File file,
+            final String algorithm
+    ) throws IOException {
+        final Path sidecar = sidecarOf(file, algorithm);
+        if (!Files.isRegularFile(sidecar)) {
+            return Option.none();
+        }
+        // The checksum may be followed by the file name
+        final String contents = new String(Files.readAllBytes(sidecar), StandardCharsets.US_ASCII).trim();
+        final String checksum = contents.split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+        return (SHA1.equals(algorithm) ? SHA1_PATTERN : MD5_PATTERN).matcher(checksum).matches()
+                ? Option.some(checksum)
+                : Option.none();
+    }
+
+    /**
+     * @return the lowercase hexadecimal checksum of the file's contents
+     */
+    static String digest(
+            final File file,
+            final String algorithm
+    ) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        final byte[] buffer = new byte[64 * 1024];
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Checks the artifact's file against its {@code .sha1} checksum file, or else its
+     * {@code .md5} checksum file. A file without either, such as one installed by a local
+     * build, can't be checked and is taken as is.
+     *
+     * @return the artifact, carrying its SHA-1 in {@code VERIFIED_SHA1_ARTIFACT_PROPERTY} if
+     *   computed, or none if the file doesn't match its checksum, such as a file left
+     *   truncated by an interrupted download
+     */
+    static Option<Artifact> verified(
+            final Artifact artifact
+    ) throws IOException {
+        final File file = artifact.getFile();
+        final Option<String> sha1 = sidecar(file, SHA1);
+        if (sha1.isDefined()) {
+            final String actual = digest(file, SHA1);
+            if (!actual.equals(sha1.get())) {
+                return Option.none();
+            }
+            final Map<String, String> properties = new HashMap<>(artifact.getProperties());
+            properties.put(VERIFIED_SHA1_ARTIFACT_PROPERTY, actual);
+            return Option.of(artifact.setProperties(properties));
+        }
+
+        final Option<String> md5 = sidecar(file, MD5);
+        return md5.isEmpty() || digest(file, MD5).equals(md5.get())
+                ? Option.of(artifact)
+                : Option.none();
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryListener;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each artifact of a batch takes to resolve, from the repository events
+ * that the resolver fires as it starts and finishes resolving each artifact. Artifacts are
+ * identified by their GAV, the version being the base version of snapshots.
+ *
+ * Thread-safe, as the resolver may fire events concurrently.
+ */
+class ArtifactResolutionTiming {
+
+    private final ConcurrentHashMap<String, Long> started = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> elapsedNanos = new ConcurrentHashMap<>();
+
+    static String gavOf(
+            final Artifact artifact
+    ) {
+        return Static.mavenGAVOf(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getBaseVersion()
+        );
+    }
+
+    /**
+     * @return a listener recording the timing of the artifacts resolved, and passing all
+     *   events on to the given listener, if any
+     */
+    RepositoryListener listener(
+            final RepositoryListener delegate
+    ) {
+        return (RepositoryListener) Proxy.newProxyInstance(
+                RepositoryListener.class.getClassLoader(),
+                new Class<?>[] { RepositoryListener.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Timing of " + delegate;
+                        default:
+                            record(method.getName(), (RepositoryEvent) args[0]);
+                            return delegate != null ? invoke(method, delegate, args) : null;
+                    }
+                }
+        );
+    }
+
+    private static Object invoke(
+            final Method method,
+            final Object target,
+            final Object[] args
+    ) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void record(
+            final String eventName,
+            final RepositoryEvent event
+    ) {
+        if (event.getArtifact() == null) {
+            return;
+        }
+        final String gav = gavOf(event.getArtifact());
+        if ("artifactResolving".equals(eventName)) {
+            started.put(gav, System.nanoTime());
+        } else if ("artifactResolved".equals(eventName)) {
+            final Long start = started.remove(gav);
+            if (start != null) {
+                elapsedNanos.put(gav, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @return the time the artifact took to resolve, whether successfully or not, or none
+     *   if the resolver reported no resolution of the artifact
+     */
+    Option<Long> elapsedMillis(
+            final String gav
+    ) {
+        return Option.of(elapsedNanos.get(gav)).map(TimeUnit.NANOSECONDS::toMillis);
+    }
+
+}
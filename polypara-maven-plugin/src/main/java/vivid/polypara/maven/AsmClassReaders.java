@@ -14,54 +14,69 @@
 
 package vivid.polypara.maven;
 
-import io.vavr.collection.List;
 import io.vavr.control.Either;
 import io.vavr.control.Option;
-import org.apache.commons.compress.utils.IOUtils;
+import org.apache.maven.plugin.logging.Log;
 import org.objectweb.asm.ClassReader;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.Function;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Stream;
 
-import static java.util.function.Function.identity;
-import static vivid.polypara.maven.JavaClasses.hasJavaClassFileMagic;
+import static vivid.polypara.maven.JavaClasses.startsWithJavaClassFileMagic;
 
+/**
+ * Sources of Java classes read from Jar files and directories. Jar files are read through
+ * a memory mapping when their format permits, see {@code MappedJarFile}.
+ */
 class AsmClassReaders {
 
+    private static final Either<Message, Option<ClassReader>> NOT_READ = Either.right(Option.none());
+
     private AsmClassReaders() {
         // Hide the public constructor
     }
 
     private static Either<Message, Option<ClassReader>> classReaderOf(
             final Mojo mojo,
+            final ClassFileVisitor visitor,
+            final ClassFileBuffers buffers,
             final Path path
     ) {
-        try {
-            if (!JavaClasses.isJavaClassFilename(path.toString())) {
-                mojo.getLog().debug(
-                        "Ignoring re Java class file name extension: " +
-                                path
-                );
-                return Either.right(Option.none());
+        final Log log = mojo.getLog();
+        if (!JavaClasses.isJavaClassFilename(path.toString())) {
+            if (log.isDebugEnabled()) {
+                log.debug("Ignoring re Java class file name extension: " + path);
             }
+            return NOT_READ;
+        }
 
-            final byte[] bytes = IOUtils.toByteArray(new FileInputStream(path.toFile()));
-            if (!hasJavaClassFileMagic(bytes)) {
-                mojo.getLog().debug(
-                        "Ignoring re Java .class file header magic: " +
-                                path
-                );
-                return Either.right(Option.none());
+        try (
+                final InputStream inputStream = Files.newInputStream(path)
+        ) {
+            final ByteBuffer classFile = readFully(inputStream, buffers);
+            if (!startsWithJavaClassFileMagic(classFile)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignoring re Java .class file header magic: " + path);
+                }
+                return NOT_READ;
+            }
+            if (!visitor.isCandidate(classFile)) {
+                return NOT_READ;
             }
 
             return Either.right(
-                    Option.of(new ClassReader(bytes))
+                    Option.of(classReaderOf(classFile))
             );
         } catch (final IOException e) {
             return Either.left(
@@ -75,112 +90,249 @@ class AsmClassReaders {
 
     private static Either<Message, Option<ClassReader>> classReaderOf(
             final Mojo mojo,
+            final ClassFileVisitor visitor,
+            final ClassFileBuffers buffers,
             final File file,
             final JarFile jarFile,
             final JarEntry jarEntry
     ) {
+        final Log log = mojo.getLog();
         if (!JavaClasses.isJavaClassFilename(jarEntry.getName())) {
-            mojo.getLog().debug(
-                    "Ignoring re Java class file name extension: " +
-                            Static.pathInJarFile(file, jarEntry.getName())
-            );
-            return Either.right(Option.none());
+            if (log.isDebugEnabled()) {
+                log.debug("Ignoring re Java class file name extension: " +
+                        Static.pathInJarFile(file, jarEntry.getName()));
+            }
+            return NOT_READ;
+        }
+        if (visitor.identifiesClassFiles() &&
+                !visitor.isUnscanned(jarEntry.getName(), (int) jarEntry.getCrc(), jarEntry.getSize())) {
+            return NOT_READ;
         }
 
         try (
                 final InputStream inputStream = jarFile.getInputStream(jarEntry)
         ) {
-            final byte[] bytes = IOUtils.toByteArray(inputStream);
-            if (!hasJavaClassFileMagic(bytes)) {
-                mojo.getLog().debug(
-                        "Ignoring re Java .class file header magic: " +
-                                jarEntry.getName()
-                );
-                return Either.right(Option.none());
+            final ByteBuffer classFile = readFully(inputStream, buffers);
+            if (!startsWithJavaClassFileMagic(classFile)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignoring re Java .class file header magic: " + jarEntry.getName());
+                }
+                return NOT_READ;
+            }
+            if (!visitor.isCandidate(classFile)) {
+                return NOT_READ;
             }
 
-            mojo.getLog().debug("Queueing Java class file: " +
-                    Static.pathInJarFile(file, jarEntry.getName())
-            );
+            if (log.isDebugEnabled()) {
+                log.debug("Reading Java class file: " + Static.pathInJarFile(file, jarEntry.getName()));
+            }
             return Either.right(
-                    Option.of(new ClassReader(bytes))
+                    Option.of(classReaderOf(classFile))
             );
         } catch (final IOException e) {
             return Either.left(
                     VPE4ClassReadFailure.message(
-                            jarFile.toString(),
+                            Static.pathInJarFile(file, jarEntry.getName()),
                             e
                     )
             );
         }
     }
 
-    private static Either<Message, List<JarEntry>> streamOfJarEntries(
-            final JarFile jarFile
-    ) {
-        return Either.right(
-                List.ofAll(
-                        Static.enumerationAsStream(
-                                jarFile.entries()
-                        )
-                )
-        );
-    }
-
-    static Either<Message, List<ClassReader>> fromJarFile(
+    private static Either<Message, Option<ClassReader>> classReaderOf(
             final Mojo mojo,
-            final File file
+            final ClassFileVisitor visitor,
+            final File file,
+            final MappedJarFile jarFile,
+            final MappedJarFile.Entry jarEntry
     ) {
-        mojo.getLog().debug(
-                "Examining Jar file " + file.getAbsolutePath()
-        );
+        final Log log = mojo.getLog();
+        if (!jarFile.isJavaClassFile(jarEntry)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Ignoring re Java class file name extension: " +
+                        Static.pathInJarFile(file, jarFile.name(jarEntry)));
+            }
+            return NOT_READ;
+        }
+        if (jarEntry.uncompressedSize() < 4) {
+            if (log.isDebugEnabled()) {
+                log.debug("Ignoring re Java .class file header magic: " + jarFile.name(jarEntry));
+            }
+            return NOT_READ;
+        }
+        if (visitor.identifiesClassFiles() &&
+                !visitor.isUnscanned(jarFile.name(jarEntry), jarEntry.crc(), jarEntry.uncompressedSize())) {
+            return NOT_READ;
+        }
 
-        try (
-                final JarFile jarFile = new JarFile(file)
-        ) {
-            return streamOfJarEntries(jarFile)
-                    .map(val -> val
-                            .flatMap(entry -> classReaderOf(mojo, file, jarFile, entry))
-                            .flatMap(identity()));
+        try {
+            final ByteBuffer classFile = jarFile.contents(jarEntry);
+            if (!startsWithJavaClassFileMagic(classFile)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignoring re Java .class file header magic: " + jarFile.name(jarEntry));
+                }
+                return NOT_READ;
+            }
+            if (!visitor.isCandidate(classFile)) {
+                return NOT_READ;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Reading Java class file: " + Static.pathInJarFile(file, jarFile.name(jarEntry)));
+            }
+            return Either.right(
+                    Option.of(classReaderOf(classFile))
+            );
         } catch (final IOException e) {
             return Either.left(
                     VPE4ClassReadFailure.message(
-                            file.getAbsolutePath(),
+                            Static.pathInJarFile(file, jarFile.name(jarEntry)),
                             e
                     )
             );
         }
     }
 
-    private static Either<Message, List<Path>> streamOfPaths(
+    /**
+     * Reads the stream into the output buffer.
+     *
+     * @return a view of the buffered contents, valid until the buffer is next used
+     */
+    private static ByteBuffer readFully(
+            final InputStream inputStream,
+            final ClassFileBuffers buffers
+    ) throws IOException {
+        byte[] array = buffers.output(0);
+        int length = 0;
+        while (true) {
+            if (length == array.length) {
+                array = buffers.output(length + 1);
+            }
+            final int n = inputStream.read(array, length, array.length - length);
+            if (n == -1) {
+                return buffers.outputView(length);
+            }
+            length += n;
+        }
+    }
+
+    /**
+     * The class file is copied out of the buffer it was read into, which is reused for the
+     * next class file, into an array of its own as {@code ClassReader} requires. This is
+     * the only copy made of the classes that pass the filter, and no copy is made of those
+     * that don't.
+     */
+    private static ClassReader classReaderOf(
+            final ByteBuffer classFile
+    ) {
+        final byte[] bytes = new byte[classFile.remaining()];
+        final int position = classFile.position();
+        classFile.get(bytes);
+        // Cast to Buffer for Java 8 compatibility of the class file
+        ((Buffer) classFile).position(position);
+        return new ClassReader(bytes);
+    }
+
+    /**
+     * Hands each class read to the visitor as soon as it is read, stopping at the first
+     * class that can't be read.
+     */
+    private static <T> Either<Message, Integer> visitEach(
+            final Iterator<T> items,
+            final Function<T, Either<Message, Option<ClassReader>>> read,
+            final ClassFileVisitor visitor
+    ) {
+        int count = 0;
+        while (items.hasNext()) {
+            final Either<Message, Option<ClassReader>> classReader = read.apply(items.next());
+            if (classReader.isLeft()) {
+                return Either.left(classReader.getLeft());
+            }
+            if (classReader.get().isDefined()) {
+                visitor.visitClass(classReader.get().get());
+                count++;
+            }
+        }
+        return Either.right(count);
+    }
+
+    static ClassReaderSource fromJarFile(
+            final Mojo mojo,
             final File file
     ) {
-        try {
-            return Either.right( List.ofAll(
-                    Files.walk(file.toPath())
-                            .filter(Files::isRegularFile)));
-        } catch (final IOException e) {
-            return Either.left(
-                    VPE4ClassReadFailure.message(
-                            file.getAbsolutePath(),
-                            e
-                    )
+        return visitor -> {
+            mojo.getLog().debug(
+                    "Examining Jar file " + file.getAbsolutePath()
             );
-        }
+
+            try {
+                final Option<MappedJarFile> mapped = MappedJarFile.open(
+                        file,
+                        mojo.getScanExecution()::classFileBuffers
+                );
+                if (mapped.isDefined()) {
+                    try (
+                            final MappedJarFile jarFile = mapped.get()
+                    ) {
+                        return visitEach(
+                                jarFile.entries(),
+                                entry -> classReaderOf(mojo, visitor, file, jarFile, entry),
+                                visitor
+                        );
+                    }
+                }
+
+                mojo.getLog().debug(
+                        "Reading Jar file without memory mapping: " + file.getAbsolutePath()
+                );
+                try (
+                        final JarFile jarFile = new JarFile(file, false);
+                        final ClassFileBuffers buffers = mojo.getScanExecution().classFileBuffers()
+                ) {
+                    return visitEach(
+                            Static.enumerationAsStream(jarFile.entries()).iterator(),
+                            entry -> classReaderOf(mojo, visitor, buffers, file, jarFile, entry),
+                            visitor
+                    );
+                }
+            } catch (final IOException | UncheckedIOException e) {
+                return Either.left(
+                        VPE4ClassReadFailure.message(
+                                file.getAbsolutePath(),
+                                e
+                        )
+                );
+            }
+        };
     }
 
-    static Either<Message, List<ClassReader>> fromFile(
+    static ClassReaderSource fromFile(
             final Mojo mojo,
             final File file
     ) {
-        mojo.getLog().debug(
-                "Examining file " + file.getAbsolutePath()
-        );
-
-        return streamOfPaths(file)
-                .map(val -> val
-                        .flatMap(path -> classReaderOf(mojo, path))
-                        .flatMap(identity()));
+        return visitor -> {
+            mojo.getLog().debug(
+                    "Examining file " + file.getAbsolutePath()
+            );
+
+            try (
+                    final Stream<Path> paths = Files.walk(file.toPath());
+                    final ClassFileBuffers buffers = mojo.getScanExecution().classFileBuffers()
+            ) {
+                return visitEach(
+                        paths.filter(Files::isRegularFile).iterator(),
+                        path -> classReaderOf(mojo, visitor, buffers, path),
+                        visitor
+                );
+            } catch (final IOException | UncheckedIOException e) {
+                return Either.left(
+                        VPE4ClassReadFailure.message(
+                                file.getAbsolutePath(),
+                                e
+                        )
+                );
+            }
+        };
     }
 
 }
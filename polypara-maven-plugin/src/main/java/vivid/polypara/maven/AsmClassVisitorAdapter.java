@@ -16,12 +16,31 @@ package vivid.polypara.maven;
 
 import org.objectweb.asm.ClassVisitor;
 
+import java.nio.ByteBuffer;
+
 abstract class AsmClassVisitorAdapter<T> extends ClassVisitor {
 
     AsmClassVisitorAdapter(final int api) {
         super(api);
     }
 
+    /**
+     * Cheaply rules out classes that are of no interest to this visitor before they are
+     * parsed. Classes for which this returns false are never visited.
+     */
+    boolean isCandidate(
+            final ByteBuffer classFile
+    ) {
+        return true;
+    }
+
+    /**
+     * @return the {@code ClassReader.accept} parsing options for classes visited by this visitor
+     */
+    int parsingOptions() {
+        return 0;
+    }
+
     abstract void logStart();
 
     abstract T accumulateResult();
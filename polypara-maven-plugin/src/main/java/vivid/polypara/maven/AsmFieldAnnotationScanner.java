@@ -17,10 +17,13 @@ package vivid.polypara.maven;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
 /**
@@ -31,8 +34,12 @@ class AsmFieldAnnotationScanner extends AsmClassVisitorAdapter<List<Tuple2<Strin
     private final ArrayList<Tuple2<String, Object>> accumulator;
     private Mojo mojo;
     private final Class<?> annotationClass;
+    private final String annotationDescriptor;
+    private final byte[] annotationDescriptorUtf8;
+    private final FieldAnnotationScanner fieldAnnotationScanner = new FieldAnnotationScanner();
 
     private String clazzName;
+    private SymbolTable.ClassSymbol clazzSymbol;
 
     AsmFieldAnnotationScanner(
             final Mojo mojo,
@@ -41,10 +48,31 @@ class AsmFieldAnnotationScanner extends AsmClassVisitorAdapter<List<Tuple2<Strin
         super(Opcodes.ASM7);
         this.mojo = mojo;
         this.annotationClass = annotationClass;
+        this.annotationDescriptor = Type.getDescriptor(annotationClass);
+        this.annotationDescriptorUtf8 = annotationDescriptor.getBytes(StandardCharsets.UTF_8);
 
         this.accumulator = new ArrayList<>();
     }
 
+    /**
+     * Only classes whose constant pool holds the annotation's descriptor can bear the annotation.
+     */
+    @Override
+    boolean isCandidate(
+            final ByteBuffer classFile
+    ) {
+        return ClassFileConstantPool.containsUtf8(classFile, annotationDescriptorUtf8);
+    }
+
+    /**
+     * Only fields and their annotations are of interest; skip method bodies, stack map
+     * frames and debug information.
+     */
+    @Override
+    int parsingOptions() {
+        return ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG;
+    }
+
     @Override
     public void visit(
             final int version,
@@ -55,6 +83,7 @@ class AsmFieldAnnotationScanner extends AsmClassVisitorAdapter<List<Tuple2<Strin
             final String[] interfaces
     ) {
         this.clazzName = name;
+        this.clazzSymbol = null;
         super.visit(version, access, name, signature, superName, interfaces);
     }
 
@@ -66,7 +95,20 @@ class AsmFieldAnnotationScanner extends AsmClassVisitorAdapter<List<Tuple2<Strin
             final String signature,
             final Object value
     ) {
-        return new FieldAnnotationScanner(name, value);
+        // Fields are visited one at a time, so a single field visitor serves them all
+        fieldAnnotationScanner.fieldName = name;
+        fieldAnnotationScanner.fieldValue = value;
+        return fieldAnnotationScanner;
+    }
+
+    /**
+     * @return the class's symbol, looked up only once a field of the class matches
+     */
+    private SymbolTable.ClassSymbol clazzSymbol() {
+        if (clazzSymbol == null) {
+            clazzSymbol = mojo.getSymbolTable().classSymbol(clazzName);
+        }
+        return clazzSymbol;
     }
 
     @Override
@@ -83,24 +125,17 @@ class AsmFieldAnnotationScanner extends AsmClassVisitorAdapter<List<Tuple2<Strin
 
     private class FieldAnnotationScanner extends FieldVisitor {
 
-        private final String annotationDescriptor = Type.getType(annotationClass).getDescriptor();
-
         private boolean isTargetAnnotation(
                 final String fieldTypeDescriptor
         ) {
             return annotationDescriptor.equals(fieldTypeDescriptor);
         }
 
-        private final String fieldName;
+        private String fieldName;
         private Object fieldValue;
 
-        private FieldAnnotationScanner(
-                final String fieldName,
-                final Object fieldValue
-        ) {
+        private FieldAnnotationScanner() {
             super(Opcodes.ASM5);
-            this.fieldName = fieldName;
-            this.fieldValue = fieldValue;
         }
 
         @Override
@@ -110,8 +145,8 @@ class AsmFieldAnnotationScanner extends AsmClassVisitorAdapter<List<Tuple2<Strin
         ) {
             if (isTargetAnnotation(descriptor)) {
                 accumulator.add(new Tuple2<>(
-                        Static.fieldFullyQualifiedName(
-                                Type.getObjectType(clazzName).getClassName(),
+                        mojo.getSymbolTable().fullyQualifiedName(
+                                clazzSymbol(),
                                 fieldName
                         ),
                         fieldValue));
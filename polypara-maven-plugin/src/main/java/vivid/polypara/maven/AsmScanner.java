@@ -14,25 +14,256 @@
 
 package vivid.polypara.maven;
 
+import io.vavr.Tuple3;
 import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
 import org.objectweb.asm.ClassReader;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
 /**
- * Uses ASM to scan a list of classes that have already been read in as {@code ClassReader}s.
+ * Uses ASM to scan classes as they are read, one at a time, from a {@code ClassReaderSource}.
  */
 class AsmScanner {
 
+    /**
+     * Number of classes parsed together by one worker when scanning in parallel.
+     */
+    private static final int CLASS_BATCH_SIZE = 64;
+
     private AsmScanner() {
         // Hide public constructor
     }
 
-    static <T> T scan(
+    static <T> Either<Message, T> scan(
             final AsmClassVisitorAdapter<T> adapter,
-            final List<ClassReader> classReaders
+            final ClassReaderSource classReaders
     ) {
         adapter.logStart();
-        classReaders.forEach(c -> c.accept(adapter, 0));
-        return adapter.accumulateResult();
+        return classReaders
+                .forEach(ClassFileVisitor.of(
+                        adapter::isCandidate,
+                        c -> c.accept(adapter, adapter.parsingOptions())
+                ))
+                .map(count -> adapter.accumulateResult());
+    }
+
+    static <E> Either<Message, List<E>> scan(
+            final Supplier<? extends AsmClassVisitorAdapter<List<E>>> adapters,
+            final ClassReaderSource classReaders,
+            final ScanExecution execution
+    ) {
+        return scan(adapters, classReaders, execution, Option.none());
+    }
+
+    /**
+     * Scans classes in parallel when the execution provides worker threads. Classes are
+     * parsed in batches, and the batches' results are concatenated in the order the
+     * classes were read. The result is thus identical to that of a sequential scan.
+     *
+     * Each class is parsed by its own adapter, so that its results can be retained in
+     * the scanned class files, if given. Class files that the source identifies as
+     * scanned before aren't read; their retained results take their place.
+     */
+    static <E> Either<Message, List<E>> scan(
+            final Supplier<? extends AsmClassVisitorAdapter<List<E>>> adapters,
+            final ClassReaderSource classReaders,
+            final ScanExecution execution,
+            final Option<ScannedClassFiles<E>> scannedClassFiles
+    ) {
+        final AsmClassVisitorAdapter<List<E>> prototype = adapters.get();
+        prototype.logStart();
+        final Scan<E> scan = new Scan<>(
+                adapters,
+                prototype,
+                execution.classExecutor(),
+                2 * execution.parallelism(),
+                scannedClassFiles
+        );
+        final Either<Message, Integer> read = classReaders.forEach(scan);
+        if (read.isLeft()) {
+            scan.cancel();
+            return Either.left(read.getLeft());
+        }
+        return Either.right(scan.finish());
+    }
+
+    /**
+     * A class file to be parsed, or the retained results of an identical class file.
+     */
+    private static class Item<E> {
+
+        private final Tuple3<String, Integer, Long> identity;
+        private final ClassReader classReader;
+        private final List<E> results;
+
+        private Item(
+                final Tuple3<String, Integer, Long> identity,
+                final ClassReader classReader,
+                final List<E> results
+        ) {
+            this.identity = identity;
+            this.classReader = classReader;
+            this.results = results;
+        }
+
+    }
+
+    private static class Scan<E>
+            implements ClassFileVisitor
+    {
+
+        private final Supplier<? extends AsmClassVisitorAdapter<List<E>>> adapters;
+        private final AsmClassVisitorAdapter<List<E>> prototype;
+        private final Option<ExecutorService> executor;
+        private final int maximumBatchesInFlight;
+        private final Option<ScannedClassFiles<E>> scannedClassFiles;
+
+        private final ArrayDeque<Future<java.util.List<E>>> inFlight = new ArrayDeque<>();
+        private java.util.List<Item<E>> batch = new ArrayList<>();
+        private int classesInBatch = 0;
+        private final ArrayList<E> result = new ArrayList<>();
+
+        /**
+         * Identity of the class file being read, if offered by the source.
+         */
+        private Tuple3<String, Integer, Long> identity;
+
+        private Scan(
+                final Supplier<? extends AsmClassVisitorAdapter<List<E>>> adapters,
+                final AsmClassVisitorAdapter<List<E>> prototype,
+                final Option<ExecutorService> executor,
+                final int maximumBatchesInFlight,
+                final Option<ScannedClassFiles<E>> scannedClassFiles
+        ) {
+            this.adapters = adapters;
+            this.prototype = prototype;
+            this.executor = executor;
+            this.maximumBatchesInFlight = maximumBatchesInFlight;
+            this.scannedClassFiles = scannedClassFiles;
+        }
+
+        @Override
+        public boolean identifiesClassFiles() {
+            return scannedClassFiles.isDefined();
+        }
+
+        @Override
+        public boolean isUnscanned(
+                final String name,
+                final int crc,
+                final long size
+        ) {
+            final Tuple3<String, Integer, Long> offered = new Tuple3<>(name, crc, size);
+            final Option<List<E>> retained = scannedClassFiles.get().get(offered);
+            if (retained.isDefined()) {
+                identity = null;
+                append(new Item<>(null, null, retained.get()));
+                return false;
+            }
+            identity = offered;
+            return true;
+        }
+
+        @Override
+        public boolean isCandidate(
+                final ByteBuffer classFile
+        ) {
+            final boolean candidate = prototype.isCandidate(classFile);
+            if (!candidate) {
+                retain(identity, List.empty());
+                identity = null;
+            }
+            return candidate;
+        }
+
+        @Override
+        public void visitClass(
+                final ClassReader classReader
+        ) {
+            final Item<E> item = new Item<>(identity, classReader, null);
+            identity = null;
+            if (executor.isEmpty()) {
+                result.addAll(parse(item).asJava());
+                return;
+            }
+            batch.add(item);
+            classesInBatch++;
+            if (classesInBatch == CLASS_BATCH_SIZE) {
+                submitBatch();
+            }
+        }
+
+        private void retain(
+                final Tuple3<String, Integer, Long> identity,
+                final List<E> results
+        ) {
+            if (identity != null) {
+                scannedClassFiles.forEach(s -> s.put(identity, results));
+            }
+        }
+
+        private List<E> parse(
+                final Item<E> item
+        ) {
+            final AsmClassVisitorAdapter<List<E>> adapter = adapters.get();
+            item.classReader.accept(adapter, adapter.parsingOptions());
+            final List<E> results = adapter.accumulateResult();
+            retain(item.identity, results);
+            return results;
+        }
+
+        /**
+         * Keeps retained results in read order with the classes still being parsed.
+         */
+        private void append(
+                final Item<E> item
+        ) {
+            if (inFlight.isEmpty() && batch.isEmpty()) {
+                result.addAll(item.results.asJava());
+            } else {
+                batch.add(item);
+            }
+        }
+
+        private void submitBatch() {
+            final java.util.List<Item<E>> items = batch;
+            batch = new ArrayList<>();
+            classesInBatch = 0;
+            inFlight.add(executor.get().submit(() -> {
+                final java.util.List<E> results = new ArrayList<>();
+                for (final Item<E> item : items) {
+                    results.addAll((item.classReader != null ? parse(item) : item.results).asJava());
+                }
+                return results;
+            }));
+
+            // Bound the number of classes held in memory
+            while (inFlight.size() > maximumBatchesInFlight) {
+                result.addAll(ScanExecution.await(inFlight.poll()));
+            }
+        }
+
+        List<E> finish() {
+            if (!batch.isEmpty()) {
+                submitBatch();
+            }
+            while (!inFlight.isEmpty()) {
+                result.addAll(ScanExecution.await(inFlight.poll()));
+            }
+            return List.ofAll(result);
+        }
+
+        void cancel() {
+            inFlight.forEach(f -> f.cancel(true));
+        }
+
     }
 
 }
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.i18n.I18N;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+
+/**
+ * Writes the {@code Constant} fields of each of the released versions to the constants
+ * baseline, a text file to be checked in with the project's sources. The {@code verify}
+ * goal then verifies against the baseline when {@code useBaseline} is set, without
+ * resolving or scanning any of the released versions.
+ *
+ * The baseline of all the configured versions is written anew, unless
+ * {@code extendBaseline} names the versions to add to the existing baseline, such as a
+ * newly cut release. The current project's version is scanned from its build output; the
+ * other versions are resolved.
+ *
+ * @since 0.5.0
+ */
+@org.apache.maven.plugins.annotations.Mojo(
+        name = Static.POM_POLYPARA_BASELINE_MOJO_NAME
+)
+public class BaselineConstantsMojo extends AbstractMojo implements Mojo {
+
+    private I18nContext i18nContext;
+    private ScanExecution scanExecution;
+    private final SymbolTable symbolTable = new SymbolTable();
+
+
+
+    //
+    // Maven execution environment configuration
+    //
+
+    @Component
+    private I18N i18n;
+
+    /**
+     * The entry point to Maven Artifact Resolver, i.e. the component doing all the work.
+     */
+    @Component
+    private RepositorySystem repositorySystem;
+
+    /**
+     * The current repository/network configuration of Maven.
+     */
+    @Parameter(readonly = true, property = "repositorySystemSession")
+    private RepositorySystemSession repositorySystemSession;
+
+    /**
+     * The Maven Project Object
+     */
+    @Parameter(readonly = true, required = true, property = "project")
+    private MavenProject mavenProject;
+
+    /**
+     * The project's remote repositories to use for the resolution.
+     */
+    @Parameter(readonly = true, property = "project.remoteProjectRepositories")
+    private java.util.List<RemoteRepository> remoteRepositories;
+
+
+
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * The versions making up the baseline, as for the {@code verify} goal.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(alias = Static.POM_POLYPARA_VERSIONS_CONFIGURATION_KEY)
+    private java.util.List<String> specifiedVersions;
+
+    /**
+     * Versions to add to the existing baseline, replacing any already there, rather than
+     * writing the baseline of all the configured versions anew. Version ranges and
+     * {@code last:N} selectors are expanded as in {@code versions}.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_EXTEND_BASELINE_CONFIGURATION_KEY)
+    private java.util.List<String> extendBaseline;
+
+    /**
+     * Location of the constants baseline.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(
+            property = Static.POM_POLYPARA_BASELINE_FILE_CONFIGURATION_KEY,
+            defaultValue = "${project.basedir}/polypara-baseline.txt"
+    )
+    private File baselineFile;
+
+    /**
+     * Flag to easily skip execution.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_SKIP_PROPERTY_KEY, defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * As for the {@code verify} goal.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_THREADS_CONFIGURATION_KEY, defaultValue = "0")
+    private int threads;
+
+    /**
+     * As for the {@code verify} goal.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_RESOLUTION_THREADS_CONFIGURATION_KEY, defaultValue = "5")
+    private int resolutionThreads;
+
+
+
+    //
+    // Provide access to this Mojo's execution context
+    //
+
+    @Override
+    public Option<ConstantTableCache> getConstantTableCache() {
+        return Option.none();
+    }
+
+    @Override
+    public I18nContext getI18nContext() {
+        return i18nContext;
+    }
+
+    @Override
+    public MavenProject getMavenProject() {
+        return mavenProject;
+    }
+
+    @Override
+    public VerifyConstantsMojo.ReportingLevel getReportingLevel() {
+        return VerifyConstantsMojo.ReportingLevel.ERROR;
+    }
+
+    @Override
+    public java.util.List<RemoteRepository> getRemoteRepositories() {
+        return remoteRepositories;
+    }
+
+    @Override
+    public int getResolutionThreads() {
+        return resolutionThreads;
+    }
+
+    @Override
+    public ScanExecution getScanExecution() {
+        return scanExecution;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    @Override
+    public RepositorySystem getRepositorySystem() {
+        return repositorySystem;
+    }
+
+    @Override
+    public RepositorySystemSession getRepositorySystemSession() {
+        return repositorySystemSession;
+    }
+
+
+
+    //
+    // Mojo logic
+    //
+
+    public void execute() throws MojoExecutionException {
+        i18nContext = new I18nContext(i18n);
+
+        if (skip) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.polypara.action.skipping-execution-via-configuration",
+                            Static.POM_POLYPARA_SKIP_PROPERTY_KEY
+                    )
+            );
+            return;
+        }
+
+        try {
+            writeBaseline();
+        } catch (final SneakyMojoException e) {
+            throw SneakyMojoException.unwrap(e);
+        } catch (final MojoExecutionException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VPE1InternalError.message(
+                            "Unexpected exception",
+                            e
+                    )
+                    .render(this)
+            );
+        }
+    }
+
+    private void writeBaseline() throws MojoExecutionException {
+        final boolean extending = extendBaseline != null && !extendBaseline.isEmpty();
+        final ConstantsBaseline existing = extending
+                ? rightOrThrow(ConstantsBaseline.read(this, baselineFile))
+                : ConstantsBaseline.empty();
+        final List<String> versions = extending
+                ? rightOrThrow(VersionCatalog.expand(this, List.ofAll(extendBaseline)))
+                : rightOrThrow(VersionCatalog.expand(
+                        this,
+                        List.ofAll(specifiedVersions != null ? specifiedVersions : List.empty())
+                ));
+        final String currentVersion = mavenProject.getVersion();
+
+        final LinkedHashMap<String, List<Tuple2<String, Object>>> scanned = new LinkedHashMap<>();
+        try (
+                final ScanExecution execution = ScanExecution.withThreads(threads)
+        ) {
+            scanExecution = execution;
+            rightOrThrow(VerificationPipeline.run(
+                    this,
+                    versions.remove(currentVersion),
+                    scanned::put,
+                    new ScannedClassFiles<>(),
+                    versions.contains(currentVersion)
+            ));
+        }
+
+        ConstantsBaseline baseline = existing;
+        for (final java.util.Map.Entry<String, List<Tuple2<String, Object>>> version : scanned.entrySet()) {
+            baseline = baseline.with(version.getKey(), version.getValue());
+        }
+        try {
+            baseline.write(
+                    baselineFile,
+                    "Constants baseline of " + Static.mavenGAOf(mavenProject) + ". Add a release with:  " +
+                            "mvn polypara:" + Static.POM_POLYPARA_BASELINE_MOJO_NAME +
+                            " -D" + Static.POM_POLYPARA_EXTEND_BASELINE_CONFIGURATION_KEY + "=<version>"
+            );
+        } catch (final IOException e) {
+            throw new MojoExecutionException(
+                    VPE1InternalError.message(
+                            "Could not write the constants baseline " + baselineFile.getAbsolutePath(),
+                            e
+                    )
+                            .render(this),
+                    e
+            );
+        }
+
+        getLog().info(
+                i18nContext.getText(
+                        "vivid.polypara.action.wrote-baseline",
+                        baseline.versions().size(),
+                        Static.mavenGAOf(mavenProject),
+                        baselineFile.getAbsolutePath(),
+                        Static.humanReadableVersionList(baseline.versions())
+                )
+        );
+    }
+
+    private <T> T rightOrThrow(
+            final Either<Message, T> either
+    ) throws MojoExecutionException {
+        if (either.isLeft()) {
+            final Message message = either.getLeft();
+            throw new MojoExecutionException(
+                    message.render(this),
+                    message.getCause().getOrNull()
+            );
+        }
+        return either.get();
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Holds {@code Constant}-related data in an in-memory data store, unless its footprint is
+ * estimated to exceed a memory budget, in which case the data is spilled to disk by
+ * {@code ConstantsSpillImpl} instead.
+ *
+ * The footprint is estimated from the first version recorded with any fields, at
+ * {@code ESTIMATED_BYTES_PER_FIELD_AND_VERSION} for each of its fields in each version under
+ * consideration. Versions recorded without any fields before then are replayed into the
+ * chosen data store.
+ */
+class BudgetedConstantsData
+        implements ConstantsData
+{
+
+    /**
+     * A value code and its share of the field's name, presence and distinct values.
+     */
+    static final long ESTIMATED_BYTES_PER_FIELD_AND_VERSION = 16;
+
+    private final Mojo mojo;
+    private final List<String> versionStrings;
+    private final long budgetBytes;
+    private final Supplier<ConstantsData> inMemory;
+
+    private ConstantsData chosen;
+
+    private final ArrayList<String> recordedWithoutFields = new ArrayList<>();
+
+    /**
+     * @param budgetBytes the estimated footprint in bytes beyond which the data is spilled to disk
+     * @param inMemory    the data store to use within the budget
+     */
+    BudgetedConstantsData(
+            final Mojo mojo,
+            final List<String> versionStrings,
+            final long budgetBytes,
+            final Supplier<ConstantsData> inMemory
+    ) {
+        this.mojo = mojo;
+        this.versionStrings = versionStrings;
+        this.budgetBytes = budgetBytes;
+        this.inMemory = inMemory;
+    }
+
+    /**
+     * @return true once the data is being spilled to disk
+     */
+    boolean spills() {
+        return chosen instanceof ConstantsSpillImpl;
+    }
+
+    private ConstantsData choose(
+            final int fieldsPerVersion
+    ) {
+        final long estimatedBytes =
+                ESTIMATED_BYTES_PER_FIELD_AND_VERSION * fieldsPerVersion * versionStrings.size();
+        if (estimatedBytes <= budgetBytes) {
+            mojo.getLog().debug(String.format(
+                    "Estimated footprint of %d bytes is within the memory budget of %d bytes",
+                    estimatedBytes,
+                    budgetBytes
+            ));
+            return inMemory.get();
+        }
+
+        mojo.getLog().info(mojo.getI18nContext().getText(
+                "vivid.polypara.action.spilling-to-disk",
+                estimatedBytes,
+                budgetBytes
+        ));
+        try {
+            return new ConstantsSpillImpl(mojo, versionStrings);
+        } catch (final IOException e) {
+            throw new SneakyMojoException(
+                    new MojoExecutionException(
+                            VPE1InternalError.message("Could not create the run file directory", e)
+                                    .render(mojo)
+                    )
+            );
+        }
+    }
+
+    private ConstantsData chosen(
+            final int fieldsPerVersion
+    ) {
+        if (chosen == null) {
+            chosen = choose(fieldsPerVersion);
+            recordedWithoutFields.forEach(v -> chosen.recordConstantFields(v, List.empty()));
+            recordedWithoutFields.clear();
+        }
+        return chosen;
+    }
+
+    public void recordConstantFields(
+            final String version,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        if (chosen == null && fields.isEmpty()) {
+            recordedWithoutFields.add(version);
+        } else {
+            chosen(fields.size()).recordConstantFields(version, fields);
+        }
+    }
+
+    public List<ConstancyViolation> constancyViolationDescriptions() {
+        return chosen(0).constancyViolationDescriptions();
+    }
+
+    public int constantFieldsCount() {
+        return chosen(0).constantFieldsCount();
+    }
+
+    public void close() throws IOException {
+        if (chosen != null) {
+            chosen.close();
+        }
+    }
+
+}
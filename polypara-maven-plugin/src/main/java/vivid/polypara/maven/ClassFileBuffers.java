@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+
+import java.io.Closeable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * Scratch space for reading class files: arrays that grow to fit the largest class file
+ * read, and an {@code Inflater}.
+ *
+ * Instances are pooled by a {@code ScanExecution} and returned to its pool when closed, so
+ * that reading one Jar file or directory after another reuses the same buffers rather than
+ * allocating anew for each class file. The pool is emptied when the execution is closed.
+ * An instance is used by one reader at a time.
+ */
+class ClassFileBuffers
+        implements Closeable
+{
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private final Option<BlockingQueue<ClassFileBuffers>> pool;
+    private final Inflater inflater = new Inflater(true);
+    private byte[] input = new byte[INITIAL_CAPACITY];
+    private byte[] output = new byte[INITIAL_CAPACITY];
+    private ByteBuffer outputView = ByteBuffer.wrap(output);
+
+    private ClassFileBuffers(
+            final Option<BlockingQueue<ClassFileBuffers>> pool
+    ) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return buffers of their own, released when closed
+     */
+    static ClassFileBuffers unpooled() {
+        return new ClassFileBuffers(Option.none());
+    }
+
+    /**
+     * @return buffers taken from the pool, or new buffers if it is empty, returned to the
+     *   pool when closed
+     */
+    static ClassFileBuffers acquire(
+            final BlockingQueue<ClassFileBuffers> pool
+    ) {
+        final ClassFileBuffers buffers = pool.poll();
+        return buffers != null ? buffers : new ClassFileBuffers(Option.of(pool));
+    }
+
+    /**
+     * Empties the pool, releasing the buffers in it.
+     */
+    static void release(
+            final BlockingQueue<ClassFileBuffers> pool
+    ) {
+        for (ClassFileBuffers buffers = pool.poll(); buffers != null; buffers = pool.poll()) {
+            buffers.inflater.end();
+        }
+    }
+
+    private static int grownCapacity(
+            final int current,
+            final int required
+    ) {
+        return Math.max(required, (int) Math.min(Integer.MAX_VALUE - 8, 2L * current));
+    }
+
+    /**
+     * @return the input array, of at least the given capacity
+     */
+    byte[] input(
+            final int capacity
+    ) {
+        if (input.length < capacity) {
+            input = new byte[grownCapacity(input.length, capacity)];
+        }
+        return input;
+    }
+
+    /**
+     * @return the output array, of at least the given capacity. Growing the array retains
+     *   its contents.
+     */
+    byte[] output(
+            final int capacity
+    ) {
+        if (output.length < capacity) {
+            output = Arrays.copyOf(output, grownCapacity(output.length, capacity));
+            outputView = ByteBuffer.wrap(output);
+        }
+        return output;
+    }
+
+    /**
+     * @return a view of the first {@code length} bytes of the output array. The view is
+     *   reused; it is valid until the next call of this method.
+     */
+    ByteBuffer outputView(
+            final int length
+    ) {
+        // Cast to Buffer for Java 8 compatibility of the class file
+        ((Buffer) outputView).clear();
+        ((Buffer) outputView).limit(length);
+        return outputView;
+    }
+
+    /**
+     * @return the inflater, reset for a new stream of raw deflated data
+     */
+    Inflater inflater() {
+        inflater.reset();
+        return inflater;
+    }
+
+    /**
+     * Returns the buffers to their pool, or releases them if they have none or it is full.
+     */
+    @Override
+    public void close() {
+        if (pool.isEmpty() || !pool.get().offer(this)) {
+            inflater.end();
+        }
+    }
+
+}
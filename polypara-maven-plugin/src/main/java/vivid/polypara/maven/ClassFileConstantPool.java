@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Examines the constant pool of a Java class file directly, without parsing the class.
+ *
+ * Every descriptor and name a class refers to, including those of its annotations, is
+ * held in a {@code CONSTANT_Utf8} entry of its constant pool. A class whose constant pool
+ * lacks the descriptor of an annotation therefore can't bear that annotation.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se14/html/jvms-4.html#jvms-4.4">JVMS 4.4</a>
+ */
+class ClassFileConstantPool {
+
+    private static final int CONSTANT_POOL_COUNT_OFFSET = 8;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ClassFileConstantPool() {
+        // Hide the public constructor
+    }
+
+    private static int u2(
+            final ByteBuffer b,
+            final int offset
+    ) {
+        return ((b.get(offset) & 0xFF) << 8) | (b.get(offset + 1) & 0xFF);
+    }
+
+    private static boolean regionEquals(
+            final ByteBuffer b,
+            final int offset,
+            final byte[] expected
+    ) {
+        for (int i = 0; i < expected.length; i++) {
+            if (b.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param classFile whose remaining bytes are a Java class file. The buffer's position
+     *   is left unchanged.
+     * @param utf8 the modified UTF-8 encoding of the string sought
+     * @return false only if the constant pool certainly holds no such {@code CONSTANT_Utf8}
+     *   entry. Class files whose constant pool can't be walked yield true, leaving their
+     *   verdict to a full parse.
+     */
+    static boolean containsUtf8(
+            final ByteBuffer classFile,
+            final byte[] utf8
+    ) {
+        Objects.requireNonNull(classFile, "classFile is null");
+        Objects.requireNonNull(utf8, "utf8 is null");
+        final int start = classFile.position();
+        final int length = classFile.limit();
+        if (length - start < CONSTANT_POOL_COUNT_OFFSET + 2) {
+            return true;
+        }
+
+        final int constantPoolCount = u2(classFile, start + CONSTANT_POOL_COUNT_OFFSET);
+        int offset = start + CONSTANT_POOL_COUNT_OFFSET + 2;
+        for (int index = 1; index < constantPoolCount; index++) {
+            if (offset >= length) {
+                return true;
+            }
+            final int tag = classFile.get(offset);
+            final int size;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    if (offset + 3 > length) {
+                        return true;
+                    }
+                    final int utf8Length = u2(classFile, offset + 1);
+                    if (offset + 3 + utf8Length > length) {
+                        return true;
+                    }
+                    if (utf8Length == utf8.length && regionEquals(classFile, offset + 3, utf8)) {
+                        return true;
+                    }
+                    size = 3 + utf8Length;
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    size = 9;
+                    // Eight-byte constants occupy two constant pool entries
+                    index++;
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    size = 5;
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    size = 4;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    size = 3;
+                    break;
+                default:
+                    // Unknown to this version of the class file format
+                    return true;
+            }
+            offset += size;
+        }
+        return false;
+    }
+
+}
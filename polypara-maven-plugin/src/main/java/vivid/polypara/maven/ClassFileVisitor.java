@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import org.objectweb.asm.ClassReader;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Receives the class files of a {@code ClassReaderSource}, one at a time. For each class
+ * file, a source consults {@code isUnscanned} if the visitor identifies class files and
+ * the source can identify the class file without reading it, then {@code isCandidate}
+ * once the class file is read, and finally {@code visitClass} for candidates.
+ */
+interface ClassFileVisitor {
+
+    /**
+     * @return true if the visitor wishes to be offered the identities of class files
+     */
+    boolean identifiesClassFiles();
+
+    /**
+     * @param name of the class file within its container
+     * @param crc CRC-32 of the class file
+     * @param size of the class file in bytes
+     * @return false if an identical class file was scanned before, in which case this one
+     *   is neither read nor visited
+     */
+    boolean isUnscanned(
+            final String name,
+            final int crc,
+            final long size
+    );
+
+    /**
+     * @param classFile whose remaining bytes are the class file, valid only for the
+     *   duration of the call
+     * @return true if the class file is to be parsed and visited
+     */
+    boolean isCandidate(
+            final ByteBuffer classFile
+    );
+
+    void visitClass(
+            final ClassReader classReader
+    );
+
+    /**
+     * @return a visitor of the classes accepted by the filter, without identifying class files
+     */
+    static ClassFileVisitor of(
+            final Predicate<ByteBuffer> classFileFilter,
+            final Consumer<ClassReader> visitor
+    ) {
+        return new ClassFileVisitor() {
+
+            @Override
+            public boolean identifiesClassFiles() {
+                return false;
+            }
+
+            @Override
+            public boolean isUnscanned(
+                    final String name,
+                    final int crc,
+                    final long size
+            ) {
+                return true;
+            }
+
+            @Override
+            public boolean isCandidate(
+                    final ByteBuffer classFile
+            ) {
+                return classFileFilter.test(classFile);
+            }
+
+            @Override
+            public void visitClass(
+                    final ClassReader classReader
+            ) {
+                visitor.accept(classReader);
+            }
+
+        };
+    }
+
+}
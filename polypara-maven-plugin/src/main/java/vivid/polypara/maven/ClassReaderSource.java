@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Either;
+
+/**
+ * A sequence of Java classes that are read one at a time, each only as it is handed to
+ * the visitor, so that no more than one class is held in memory by the source.
+ * A {@code ClassReader} is only made for the class files that the visitor accepts.
+ */
+@FunctionalInterface
+interface ClassReaderSource {
+
+    /**
+     * @return the number of classes visited, or the reason reading the classes failed
+     */
+    Either<Message, Integer> forEach(
+            final ClassFileVisitor visitor
+    );
+
+}
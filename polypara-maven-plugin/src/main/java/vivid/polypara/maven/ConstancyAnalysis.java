@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+
+/**
+ * Computes the value history of a single {@code Constant} field across all versions under
+ * consideration, independent of how the field's values are stored.
+ *
+ * The history is computed in a single pass over the field's values in version order, each
+ * value given as its {@code ValueDictionary} code, so that values are compared as
+ * {@code int}s and versions are never compared at all.
+ */
+class ConstancyAnalysis {
+
+    private ConstancyAnalysis() {
+        // Hide the public constructor
+    }
+
+    /**
+     * @param versionsInOrder all versions under consideration, in ascending version order
+     * @param codes the field's value codes, indexed like {@code versionsInOrder}
+     * @param decode the value of a code other than {@code ValueDictionary.ABSENT}
+     * @return a constancy violation if the field's value changes at least once over the
+     *   range of versions in which it is defined
+     */
+    static Option<ConstancyViolation> violationOf(
+            final Mojo mojo,
+            final String fullyQualifiedFieldName,
+            final SimpleVersionRange[] versionsInOrder,
+            final int[] codes,
+            final IntFunction<Object> decode
+    ) {
+        final List<Tuple2<SimpleVersionRange, Option<Object>>> fineHistory =
+                history(versionsInOrder, codes, decode);
+
+        if (fineHistory.isEmpty()) {
+            throw new SneakyMojoException(
+                    new MojoExecutionException(
+                            VPE1InternalError.message(
+                                    String.format(
+                                            "Field %s was recorded as being subject to @Constant constraints " +
+                                                    "but was calculated as not being defined in any version",
+                                            fullyQualifiedFieldName
+                                    ))
+                                    .render(mojo)
+                    )
+            );
+        }
+        // When fineHistory.length() == 1, the field value is constant throughout its recorded range.
+        else if (fineHistory.length() >= 2) {
+            return Option.of(new ConstancyViolation(fullyQualifiedFieldName, fineHistory));
+        }
+        return Option.none();
+    }
+
+    /**
+     * @param versionsInOrder all versions under consideration, in ascending version order
+     * @param codes the field's value codes, indexed like {@code versionsInOrder}
+     * @param decode the value of a code other than {@code ValueDictionary.ABSENT}
+     * @return the field's values in ascending version order, with adjacent versions of equal
+     *   value collapsed into a single version range and leading and trailing absences trimmed
+     */
+    static List<Tuple2<SimpleVersionRange, Option<Object>>> history(
+            final SimpleVersionRange[] versionsInOrder,
+            final int[] codes,
+            final IntFunction<Object> decode
+    ) {
+        final int n = codes.length;
+        if (n == 0) {
+            return List.empty();
+        }
+
+        int first = 0;
+        while (first < n && codes[first] == ValueDictionary.ABSENT) {
+            first++;
+        }
+        int last = n - 1;
+        while (last >= first && codes[last] == ValueDictionary.ABSENT) {
+            last--;
+        }
+        if (first > last) {
+            // Absent throughout, hence nothing to trim
+            return List.of(new Tuple2<>(run(versionsInOrder, 0, n - 1), Option.none()));
+        }
+
+        final ArrayList<Tuple2<SimpleVersionRange, Option<Object>>> history = new ArrayList<>();
+        int runStart = first;
+        for (int i = first + 1; i <= last + 1; i++) {
+            if (i > last || codes[i] != codes[runStart]) {
+                history.add(new Tuple2<>(
+                        run(versionsInOrder, runStart, i - 1),
+                        codes[runStart] == ValueDictionary.ABSENT
+                                ? Option.none()
+                                : Option.of(decode.apply(codes[runStart]))
+                ));
+                runStart = i;
+            }
+        }
+        return List.ofAll(history);
+    }
+
+    private static SimpleVersionRange run(
+            final SimpleVersionRange[] versionsInOrder,
+            final int first,
+            final int last
+    ) {
+        return first == last
+                ? versionsInOrder[first]
+                : versionsInOrder[first].through(versionsInOrder[last].start);
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Confirms constancy violations while versions are still being recorded, in any order.
+ *
+ * Each field's running history holds its value and the first and last positions, in
+ * version order, at which it was recorded. A violation is confirmed as soon as the recorded
+ * versions alone prove it, whichever versions are yet to be recorded: the field has
+ * different values in two recorded versions, or is absent from a recorded version between
+ * two in which it is present. The same is judged by {@code ConstantsData} over the
+ * recorded versions.
+ */
+class ConstancyDetector {
+
+    private static class FieldHistory {
+
+        private final Object value;
+        private int first;
+        private int last;
+        private boolean violated = false;
+
+        private FieldHistory(
+                final Object value,
+                final int position
+        ) {
+            this.value = value;
+            this.first = position;
+            this.last = position;
+        }
+
+    }
+
+    /**
+     * Version string to its position in version order.
+     */
+    private final HashMap<String, Integer> positions = new HashMap<>();
+
+    private final TreeSet<Integer> recordedPositions = new TreeSet<>();
+
+    private final HashMap<String, FieldHistory> histories = new HashMap<>();
+
+    private Option<String> firstViolation = Option.none();
+
+    ConstancyDetector(
+            final List<String> versions
+    ) {
+        new VersionCatalog(versions).inVersionOrder()
+                .zipWithIndex()
+                .forEach(v -> positions.put(v._1.start, v._2));
+    }
+
+    /**
+     * @return the fields whose violation the version confirms, in the order given
+     */
+    List<String> record(
+            final String version,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        final int position = positions.get(version);
+        final java.util.List<String> violated = new ArrayList<>();
+        final HashSet<String> present = new HashSet<>();
+
+        for (final Tuple2<String, Object> field : fields) {
+            if (field._2 == null) {
+                // Treated as absent, as by ValueDictionary
+                continue;
+            }
+            present.add(field._1);
+            final FieldHistory history = histories.get(field._1);
+            if (history == null) {
+                histories.put(field._1, new FieldHistory(field._2, position));
+            } else if (!history.violated && isViolatedBy(history, field._2, position)) {
+                history.violated = true;
+                violated.add(field._1);
+            }
+        }
+
+        for (final Map.Entry<String, FieldHistory> entry : histories.entrySet()) {
+            final FieldHistory history = entry.getValue();
+            if (!history.violated && !present.contains(entry.getKey()) &&
+                    history.first < position && position < history.last) {
+                history.violated = true;
+                violated.add(entry.getKey());
+            }
+        }
+
+        recordedPositions.add(position);
+        if (firstViolation.isEmpty() && !violated.isEmpty()) {
+            firstViolation = Option.of(violated.get(0));
+        }
+        return List.ofAll(violated);
+    }
+
+    /**
+     * Extends the field's history by its value at the position, unless that confirms a
+     * violation.
+     */
+    private boolean isViolatedBy(
+            final FieldHistory history,
+            final Object value,
+            final int position
+    ) {
+        if (!Objects.equals(history.value, value)) {
+            return true;
+        }
+        if (position < history.first) {
+            if (!recordedPositions.subSet(position, false, history.first, false).isEmpty()) {
+                return true;
+            }
+            history.first = position;
+        } else if (position > history.last) {
+            if (!recordedPositions.subSet(history.last, false, position, false).isEmpty()) {
+                return true;
+            }
+            history.last = position;
+        }
+        return false;
+    }
+
+    /**
+     * @return the first field whose violation was confirmed, if any
+     */
+    Option<String> firstViolation() {
+        return firstViolation;
+    }
+
+}
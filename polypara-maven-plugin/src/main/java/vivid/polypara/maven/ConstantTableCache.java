@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent on-disk cache of the {@code Constant} fields found in released artifacts.
+ *
+ * Released artifact versions are immutable, so the fields extracted from an artifact are
+ * stored keyed by the SHA-1 of the artifact file and reused by later builds instead of
+ * scanning the artifact again. Snapshots deployed to a remote repository are keyed by
+ * their resolved, timestamped version instead, which is just as unique. Each entry is
+ * stamped with {@code FORMAT_VERSION}; entries of any other format are treated as misses
+ * and overwritten. The least-recently used entries are evicted once the cache grows
+ * beyond its maximum size.
+ */
+class ConstantTableCache {
+
+    /**
+     * Increment whenever the entry format or the semantics of the extracted fields change.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x50505443;    // "PPTC"
+
+    private static final String ENTRY_FILENAME_SUFFIX = ".constants";
+
+    private static final String TEMPORARY_FILENAME_SUFFIX = ".tmp";
+
+    private final Mojo mojo;
+    private final Path directory;
+    private final long maximumBytes;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    ConstantTableCache(
+            final Mojo mojo,
+            final Path directory,
+            final long maximumBytes
+    ) {
+        this.mojo = mojo;
+        this.directory = directory;
+        this.maximumBytes = maximumBytes;
+    }
+
+    int hits() {
+        return hits.get();
+    }
+
+    int misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the key of the artifact's cache entry
+     */
+    static String keyOf(
+            final Artifact artifact
+    ) throws IOException {
+        if (artifact.isSnapshot() && !artifact.getVersion().equals(artifact.getBaseVersion())) {
+            return String.join(
+                    "_",
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getVersion()
+            );
+        }
+        final String verified = artifact.getProperty(ArtifactChecksums.VERIFIED_SHA1_ARTIFACT_PROPERTY, null);
+        return verified != null ? verified : sha1(artifact.getFile());
+    }
+
+    /**
+     * @return the SHA-1 checksum of the file. The checksum is taken from the
+     *   {@code .sha1} file that the resolver writes next to downloaded artifacts, unless
+     *   that file is older than the artifact, the artifact having been replaced since.
+     */
+    static String sha1(
+            final File file
+    ) throws IOException {
+        final Path sidecar = ArtifactChecksums.sidecarOf(file, ArtifactChecksums.SHA1);
+        if (Files.isRegularFile(sidecar) &&
+                Files.getLastModifiedTime(sidecar).compareTo(Files.getLastModifiedTime(file.toPath())) >= 0) {
+            final Option<String> checksum = ArtifactChecksums.sidecar(file, ArtifactChecksums.SHA1);
+            if (checksum.isDefined()) {
+                return checksum.get();
+            }
+        }
+        return ArtifactChecksums.digest(file, ArtifactChecksums.SHA1);
+    }
+
+    private Path entryPath(
+            final String key
+    ) {
+        return directory.resolve(key + ENTRY_FILENAME_SUFFIX);
+    }
+
+    /**
+     * @return the fields previously stored for the artifact with the given key
+     */
+    Option<List<Tuple2<String, Object>>> get(
+            final String gav,
+            final String key
+    ) {
+        final Path entry = entryPath(key);
+        if (!Files.isRegularFile(entry)) {
+            misses.incrementAndGet();
+            mojo.getLog().debug("Constant table cache miss: " + gav);
+            return Option.none();
+        }
+
+        try (
+                final DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(entry)))
+        ) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                misses.incrementAndGet();
+                mojo.getLog().debug("Constant table cache entry of another format: " + gav);
+                return Option.none();
+            }
+            in.readUTF();   // GAV, for the benefit of humans inspecting the cache
+            final int count = in.readInt();
+            final ArrayList<Tuple2<String, Object>> fields = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                fields.add(new Tuple2<>(mojo.getSymbolTable().intern(in.readUTF()), ConstantValues.read(in)));
+            }
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+
+            hits.incrementAndGet();
+            mojo.getLog().debug("Constant table cache hit: " + gav);
+            return Option.of(List.ofAll(fields));
+        } catch (final IOException e) {
+            misses.incrementAndGet();
+            mojo.getLog().debug("Ignoring unreadable constant table cache entry " + entry, e);
+            return Option.none();
+        }
+    }
+
+    /**
+     * Stores the fields of the artifact with the given key, then evicts the
+     * least-recently used entries until the cache fits its maximum size. Failures are
+     * logged and otherwise ignored; the cache is merely an optimization.
+     */
+    synchronized void put(
+            final String gav,
+            final String key,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        if (!fields.forAll(f -> ConstantValues.isEncodable(f._2))) {
+            mojo.getLog().debug("Not caching constant table containing values of unsupported types: " + gav);
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            final Path temp = Files.createTempFile(directory, key, TEMPORARY_FILENAME_SUFFIX);
+            try {
+                try (
+                        final DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(Files.newOutputStream(temp)))
+                ) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeUTF(gav);
+                    out.writeInt(fields.size());
+                    for (final Tuple2<String, Object> field : fields) {
+                        out.writeUTF(field._1);
+                        ConstantValues.write(out, field._2);
+                    }
+                }
+                try {
+                    Files.move(temp, entryPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(temp, entryPath(key), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                // Gone already once moved into place
+                Files.deleteIfExists(temp);
+            }
+            mojo.getLog().debug("Stored constant table cache entry: " + gav);
+
+            evict();
+        } catch (final IOException e) {
+            mojo.getLog().warn("Could not write constant table cache entry for " + gav + ": " + e.getMessage());
+        }
+    }
+
+    private void evict() throws IOException {
+        final java.util.List<Path> entries;
+        try (final Stream<Path> paths = Files.list(directory)) {
+            entries = paths
+                    .filter(p -> p.getFileName().toString().endsWith(ENTRY_FILENAME_SUFFIX))
+                    .sorted(Comparator.comparing(ConstantTableCache::lastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+
+        long retained = 0;
+        for (final Path entry : entries) {
+            final long size = Files.size(entry);
+            if (retained + size <= maximumBytes) {
+                retained += size;
+            } else {
+                mojo.getLog().debug("Evicting constant table cache entry " + entry);
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    private static FileTime lastModified(
+            final Path path
+    ) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (final IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+}
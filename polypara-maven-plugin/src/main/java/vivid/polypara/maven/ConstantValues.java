@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary and textual encodings of {@code Constant} field values, shared by the persistent
+ * formats of this plugin. Each value is written as a one-byte type tag followed by the
+ * value itself.
+ */
+class ConstantValues {
+
+    private static final byte TAG_NULL = 'N';
+    private static final byte TAG_INT = 'I';
+    private static final byte TAG_LONG = 'J';
+    private static final byte TAG_FLOAT = 'F';
+    private static final byte TAG_DOUBLE = 'D';
+    private static final byte TAG_STRING = 'S';
+
+    private ConstantValues() {
+        // Hide the public constructor
+    }
+
+    /**
+     * @return true for the types of values that can appear in a class file's
+     *   {@code ConstantValue} attribute, and for the absence of a value
+     */
+    static boolean isEncodable(
+            final Object value
+    ) {
+        return value == null ||
+                value instanceof Integer ||
+                value instanceof Long ||
+                value instanceof Float ||
+                value instanceof Double ||
+                value instanceof String;
+    }
+
+    static void write(
+            final DataOutput out,
+            final Object value
+    ) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            out.writeUTF((String) value);
+        } else {
+            throw new IOException("Value of unsupported type: " + value.getClass().getName());
+        }
+    }
+
+    static Object read(
+            final DataInput in
+    ) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unexpected value tag: " + tag);
+        }
+    }
+
+    /**
+     * @return the value as its type tag followed by its text, on a single line. Strings
+     *   have their backslashes, control characters and any trailing space escaped.
+     */
+    static String toText(
+            final Object value
+    ) throws IOException {
+        if (value == null) {
+            return String.valueOf((char) TAG_NULL);
+        } else if (value instanceof Integer) {
+            return (char) TAG_INT + value.toString();
+        } else if (value instanceof Long) {
+            return (char) TAG_LONG + value.toString();
+        } else if (value instanceof Float) {
+            return (char) TAG_FLOAT + value.toString();
+        } else if (value instanceof Double) {
+            return (char) TAG_DOUBLE + value.toString();
+        } else if (value instanceof String) {
+            final String string = (String) value;
+            final StringBuilder text = new StringBuilder(string.length() + 1).append((char) TAG_STRING);
+            for (int i = 0; i < string.length(); i++) {
+                final char c = string.charAt(i);
+                if (c == '\\') {
+                    text.append("\\\\");
+                } else if (c < ' ' || c == 0x7F || (c == ' ' && i == string.length() - 1)) {
+                    // A trailing space is escaped so as to survive editors trimming lines
+                    text.append(String.format("\\u%04x", (int) c));
+                } else {
+                    text.append(c);
+                }
+            }
+            return text.toString();
+        } else {
+            throw new IOException("Value of unsupported type: " + value.getClass().getName());
+        }
+    }
+
+    static Object fromText(
+            final String text
+    ) throws IOException {
+        if (text.isEmpty()) {
+            throw new IOException("Missing value");
+        }
+        final String value = text.substring(1);
+        try {
+            switch (text.charAt(0)) {
+                case TAG_NULL:
+                    return null;
+                case TAG_INT:
+                    return Integer.parseInt(value);
+                case TAG_LONG:
+                    return Long.parseLong(value);
+                case TAG_FLOAT:
+                    return Float.parseFloat(value);
+                case TAG_DOUBLE:
+                    return Double.parseDouble(value);
+                case TAG_STRING:
+                    return unescape(value);
+                default:
+                    throw new IOException("Unexpected value tag: " + text.charAt(0));
+            }
+        } catch (final NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed value: " + text, e);
+        }
+    }
+
+    private static String unescape(
+            final String text
+    ) throws IOException {
+        final StringBuilder string = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c != '\\') {
+                string.append(c);
+            } else if (text.charAt(i + 1) == '\\') {
+                string.append('\\');
+                i++;
+            } else if (text.charAt(i + 1) == 'u') {
+                string.append((char) Integer.parseInt(text.substring(i + 2, i + 6), 16));
+                i += 5;
+            } else {
+                throw new IOException("Malformed escape sequence: " + text);
+            }
+        }
+        return string.toString();
+    }
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.TreeMap;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * The {@code Constant} fields of released versions, kept as a text file within the
+ * project's source tree. Verifying against the baseline needs neither the released
+ * artifacts nor the network.
+ *
+ * The file is diff-friendly: after a header naming the versions in ascending version
+ * order, each line holds a field's fully-qualified name, the versions over which it has
+ * one value, and that value, see {@code ConstantValues.toText}. Lines are sorted by field
+ * name and then by version, so that adding a release to the baseline touches only the
+ * lines of the fields of that release.
+ *
+ * <pre>
+ * polypara-baseline 1
+ * versions 1.0 1.1 1.2
+ * com.example.Api.KEY 1.0~1.1 Sone
+ * com.example.Api.KEY 1.2 Stwo
+ * </pre>
+ */
+class ConstantsBaseline {
+
+    /**
+     * Increment whenever the file format or the semantics of the recorded fields change.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String FORMAT_LINE_PREFIX = "polypara-baseline ";
+
+    private static final String VERSIONS_LINE_PREFIX = "versions";
+
+    private static final String COMMENT_LINE_PREFIX = "#";
+
+    private static final String VERSION_RANGE_SEPARATOR = "~";
+
+    /**
+     * Fields of each version, by version, in ascending version order.
+     */
+    private final Map<String, List<Tuple2<String, Object>>> fieldsByVersion;
+
+    private ConstantsBaseline(
+            final Map<String, List<Tuple2<String, Object>>> fieldsByVersion
+    ) {
+        this.fieldsByVersion = fieldsByVersion;
+    }
+
+    static ConstantsBaseline empty() {
+        return new ConstantsBaseline(TreeMap.empty(ConstantsBaseline::compareVersions));
+    }
+
+    private static int compareVersions(
+            final String a,
+            final String b
+    ) {
+        return new SimpleVersionRange(a, Option.none()).compareTo(new SimpleVersionRange(b, Option.none()));
+    }
+
+    /**
+     * @return the versions of the baseline, in ascending version order
+     */
+    List<String> versions() {
+        return fieldsByVersion.keySet().toList();
+    }
+
+    List<Tuple2<String, Object>> fieldsOf(
+            final String version
+    ) {
+        return fieldsByVersion.get(version).getOrElse(List.empty());
+    }
+
+    /**
+     * @return this baseline with the fields of the version, replacing those of the
+     *   version if already present
+     */
+    ConstantsBaseline with(
+            final String version,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        return new ConstantsBaseline(fieldsByVersion.put(version, fields));
+    }
+
+    static Either<Message, ConstantsBaseline> read(
+            final Mojo mojo,
+            final File file
+    ) {
+        try (final BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            final ConstantsBaseline baseline = parse(in);
+            mojo.getLog().debug(
+                    "Read the constants baseline " + file + " of versions:  " +
+                            Static.humanReadableVersionList(baseline.versions())
+            );
+            return Either.right(baseline);
+        } catch (final IOException e) {
+            return Either.left(VPE6BaselineReadFailure.message(file.getAbsolutePath(), e));
+        }
+    }
+
+    private static ConstantsBaseline parse(
+            final BufferedReader in
+    ) throws IOException {
+        final String format = nextLine(in);
+        if (!(FORMAT_LINE_PREFIX + FORMAT_VERSION).equals(format)) {
+            throw new IOException("Not a constants baseline of format " + FORMAT_VERSION + ": " + format);
+        }
+        final String[] versionsLine = nextLine(in).split(" ");
+        if (!VERSIONS_LINE_PREFIX.equals(versionsLine[0])) {
+            throw new IOException("Missing the versions of the constants baseline");
+        }
+        final java.util.List<String> versions = new ArrayList<>();
+        final java.util.Map<String, Integer> positions = new HashMap<>();
+        final java.util.Map<String, java.util.List<Tuple2<String, Object>>> fields = new LinkedHashMap<>();
+        for (int i = 1; i < versionsLine.length; i++) {
+            positions.put(versionsLine[i], versions.size());
+            versions.add(versionsLine[i]);
+            fields.put(versionsLine[i], new ArrayList<>());
+        }
+
+        String line;
+        while ((line = nextLine(in)) != null) {
+            // The value comes last, as strings may contain spaces
+            final String[] parts = line.split(" ", 3);
+            if (parts.length != 3) {
+                throw new IOException("Malformed line: " + line);
+            }
+            final Object value = ConstantValues.fromText(parts[2]);
+            final String[] range = parts[1].split(VERSION_RANGE_SEPARATOR, 2);
+            final Integer start = positions.get(range[0]);
+            final Integer end = positions.get(range[range.length - 1]);
+            if (start == null || end == null || end < start) {
+                throw new IOException("Unknown version range: " + line);
+            }
+            for (int position = start; position <= end; position++) {
+                fields.get(versions.get(position)).add(new Tuple2<>(parts[0], value));
+            }
+        }
+
+        ConstantsBaseline baseline = empty();
+        for (final java.util.Map.Entry<String, java.util.List<Tuple2<String, Object>>> version : fields.entrySet()) {
+            baseline = baseline.with(version.getKey(), List.ofAll(version.getValue()));
+        }
+        return baseline;
+    }
+
+    /**
+     * @return the next line that is neither blank nor a comment, or null at the end
+     */
+    private static String nextLine(
+            final BufferedReader in
+    ) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+        } while (line != null && (line.trim().isEmpty() || line.startsWith(COMMENT_LINE_PREFIX)));
+        return line;
+    }
+
+    /**
+     * Replaces the file, leaving it intact should writing fail.
+     */
+    void write(
+            final File file,
+            final String comment
+    ) throws IOException {
+        final List<String> versions = versions();
+
+        // Field name to the field's value in each version, absent where the field is
+        final java.util.SortedMap<String, Object[]> valuesByField = new java.util.TreeMap<>();
+        final java.util.SortedMap<String, boolean[]> presenceByField = new java.util.TreeMap<>();
+        versions.zipWithIndex().forEach(version -> fieldsOf(version._1).forEach(field -> {
+            valuesByField.computeIfAbsent(field._1, f -> new Object[versions.size()])[version._2] = field._2;
+            presenceByField.computeIfAbsent(field._1, f -> new boolean[versions.size()])[version._2] = true;
+        }));
+
+        final Path path = file.toPath().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        final Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (final BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write(COMMENT_LINE_PREFIX + " " + comment);
+                out.newLine();
+                out.write(FORMAT_LINE_PREFIX + FORMAT_VERSION);
+                out.newLine();
+                out.write(versions.prepend(VERSIONS_LINE_PREFIX).mkString(" "));
+                out.newLine();
+                for (final java.util.Map.Entry<String, Object[]> field : valuesByField.entrySet()) {
+                    writeField(out, versions, field.getKey(), field.getValue(), presenceByField.get(field.getKey()));
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a line for each run of adjacent versions in which the field has one value.
+     */
+    private static void writeField(
+            final BufferedWriter out,
+            final List<String> versions,
+            final String fieldName,
+            final Object[] values,
+            final boolean[] present
+    ) throws IOException {
+        int start = 0;
+        while (start < values.length) {
+            if (!present[start]) {
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end + 1 < values.length && present[end + 1] && Objects.equals(values[end + 1], values[start])) {
+                end++;
+            }
+            out.write(fieldName);
+            out.write(' ');
+            out.write(versions.get(start));
+            if (end > start) {
+                out.write(VERSION_RANGE_SEPARATOR);
+                out.write(versions.get(end));
+            }
+            out.write(' ');
+            out.write(ConstantValues.toText(values[start]));
+            out.newLine();
+            start = end + 1;
+        }
+    }
+
+}
@@ -16,18 +16,13 @@ package vivid.polypara.maven;
 
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
-import io.vavr.collection.SortedMap;
 import io.vavr.collection.Stream;
-import io.vavr.control.Option;
-import org.apache.maven.plugin.MojoExecutionException;
 import org.codehaus.plexus.util.FileUtils;
-import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
-import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 
@@ -35,16 +30,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.UUID;
-import java.util.function.BiFunction;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.function.UnaryOperator;
 
 /**
- * Manages {@code Constant}-related data in a graph database.
+ * Manages {@code Constant}-related data in a graph database. Versions that are never
+ * recorded are disregarded.
+ *
+ * Field values are dictionary-encoded, so that the database compares values by their
+ * codes. A single query, {@code VIOLATING_FIELDS_QUERY}, selects the fields that aren't
+ * constant, and only those fields' value histories are built in Java.
  */
 class ConstantsGraphImpl
         implements ConstantsData
@@ -52,9 +51,17 @@ class ConstantsGraphImpl
 
     private final GraphDatabaseService db;
     private final Path dbTempDirectory;
-    private final HashMap<Object, Object> fieldValueStore;
+    private final ValueDictionary dictionary;
+    private final HashMap<String, Node> fieldNodes;
+    private final HashMap<String, Node> versionNodes;
+    private final HashSet<String> recordedVersions;
     private final Mojo mojo;
-    private final List<String> versionStrings;
+    private final VersionCatalog catalog;
+
+    /**
+     * Maximum number of field instances recorded within a single transaction.
+     */
+    private static final int WRITE_BATCH_SIZE = 5_000;
 
     /**
      * Graph DB node identifiers.
@@ -94,8 +101,8 @@ class ConstantsGraphImpl
     private static final String FIELD_FULLY_QUALIFIED_NAME_PROPERTY = "fqn";
 
     /**
-     * {@code CONSTANT_FIELD} node property: Class member field value ID correlating
-     * to the field value store.
+     * {@code FIELD_INSTANCE} relationship property: Code of the field value in the value
+     * dictionary. Equal values have equal codes.
      */
     private static final String FIELD_VALUE_ID_PROPERTY = "valueID";
 
@@ -110,34 +117,56 @@ class ConstantsGraphImpl
      */
     private static final String VERSION_ORDINAL_PROPERTY = "ordinal";
 
+    /**
+     * Selects the fields whose value differs between two recorded versions, or which are
+     * absent from a recorded version between two in which they are present, the latter
+     * being the case if fewer recorded versions hold the field than lie between its first
+     * and last appearance. The recorded versions preceding each version ordinal are
+     * counted beforehand in the parameter {@code recordedBefore}. Each such field is
+     * returned with the ordinals of the versions holding it, in version order, and the
+     * corresponding value codes.
+     */
+    private static final String VIOLATING_FIELDS_QUERY =
+            "MATCH (f:CONSTANT_FIELD)-[i:FIELD_INSTANCE]->(v:VERSION) " +
+            "WITH f, count(DISTINCT i.valueID) AS values, count(i) AS present, " +
+            "     min(v.ordinal) AS first, max(v.ordinal) AS last " +
+            "WHERE values > 1 OR $recordedBefore[last + 1] - $recordedBefore[first] > present " +
+            "MATCH (f)-[i:FIELD_INSTANCE]->(v:VERSION) " +
+            "WITH f, i, v ORDER BY v.ordinal " +
+            "RETURN f.fqn AS field, collect(v.ordinal) AS ordinals, collect(i.valueID) AS valueIDs";
+
     ConstantsGraphImpl(
             final Mojo mojo,
             final List<String> versionStrings
+    ) throws IOException {
+        this(mojo, versionStrings, false);
+    }
+
+    /**
+     * @param digestLongStrings hold long strings as their digests only, see
+     *                          {@code ValueDictionary}
+     */
+    ConstantsGraphImpl(
+            final Mojo mojo,
+            final List<String> versionStrings,
+            final boolean digestLongStrings
     ) throws IOException {
         this.mojo = mojo;
-        this.versionStrings = versionStrings;
+        this.catalog = new VersionCatalog(versionStrings);
+        this.fieldNodes = new HashMap<>();
+        this.versionNodes = new HashMap<>();
+        this.recordedVersions = new HashSet<>();
 
         this.dbTempDirectory = Files.createTempDirectory("polypara");
         this.db = new GraphDatabaseFactory()
                 .newEmbeddedDatabase(dbTempDirectory.toFile());
         createConstraints();
-        createArtifactVersionNodes(versionStrings);
+        createArtifactVersionNodes(catalog.inVersionOrder().map(v -> v.start));
         mojo.getLog().debug(
                 "Instantiated a new database in " + this.dbTempDirectory
         );
 
-        this.fieldValueStore = new HashMap<>();
-    }
-
-    /**
-     * @return an ID that uniquely identifies this field
-     */
-    private String recordFieldValue(
-            final Object fieldValue
-    ) {
-        final String fieldID = UUID.randomUUID().toString();
-        fieldValueStore.put(fieldID, fieldValue);
-        return fieldID;
+        this.dictionary = new ValueDictionary(digestLongStrings);
     }
 
     public void close() {
@@ -157,7 +186,8 @@ class ConstantsGraphImpl
      * Creates a chain of Maven artifact versions, each related to the next
      * in order of appearance using {@code RelationshipTypes.NEXT_VERSION}.
      *
-     * @param versions an ordered set of Maven artifact versions as strings
+     * @param versions an ordered set of Maven artifact versions as strings, in ascending
+     *                 version order
      */
     private void createArtifactVersionNodes(
             final List<String> versions
@@ -168,6 +198,7 @@ class ConstantsGraphImpl
                         final Node node = db.createNode(NodeLabels.VERSION);
                         node.setProperty(VERSION_STRING_PROPERTY, versionDesc._1);
                         node.setProperty(VERSION_ORDINAL_PROPERTY, versionDesc._2);
+                        versionNodes.put(versionDesc._1, node);
                         return node;
                     };
 
@@ -231,51 +262,55 @@ class ConstantsGraphImpl
     }
 
     /**
-     * Expects to be run within a transaction.
-     * Throws an exception if the request version node couldn't be found.
+     * Records the fields of a version in batches of at most {@code WRITE_BATCH_SIZE}
+     * field instances, one transaction per batch. Field nodes are looked up at most
+     * once per run and version nodes are never looked up, being retained from their
+     * creation.
      */
-    private Node retrieveVersionNode(
-            final String version
-    ) {
-        return db.findNode(NodeLabels.VERSION, VERSION_STRING_PROPERTY, version);
-    }
-
     public void recordConstantFields(
             final String version,
             final List<Tuple2<String, Object>> fields
     ) {
-        fields.forEach(
-                f -> recordConstantField(version, f)
+        final Node versionNode = versionNodes.get(version);
+        recordedVersions.add(version);
+        fields.grouped(WRITE_BATCH_SIZE).forEach(
+                batch -> withinTransaction(
+                        () -> batch.forEach(f -> recordConstantField(versionNode, f))
+                )
         );
     }
 
+    /**
+     * Expects to be run within a transaction.
+     */
     private void recordConstantField(
-            final String version,
-            Tuple2<String, Object> field
+            final Node versionNode,
+            final Tuple2<String, Object> field
     ) {
-        withinTransaction(() -> {
-            // The field node represents a field bearing the @Constant
-            // annotation. The existence of the field node indicates
-            // that the field is present in one or more versions.
-            final Node fieldNode = findOrCreateNode(
-                    NodeLabels.CONSTANT_FIELD,
-                    FIELD_FULLY_QUALIFIED_NAME_PROPERTY,
-                    field._1
-            );
-
-            // The version in which the field exists. The versions are
-            // expected to already be made.
-            final Node versionNode = retrieveVersionNode(version);
+        // The field node represents a field bearing the @Constant
+        // annotation. The existence of the field node indicates
+        // that the field is present in one or more versions.
+        final Node fieldNode = fieldNodes.computeIfAbsent(
+                field._1,
+                fqn -> findOrCreateNode(
+                        NodeLabels.CONSTANT_FIELD,
+                        FIELD_FULLY_QUALIFIED_NAME_PROPERTY,
+                        fqn
+                )
+        );
 
-            // Relate the constant field node to its version.
-            // This vertex holds the field value as a property.
-            final Relationship r = fieldNode.createRelationshipTo(
-                    versionNode,
-                    RelationshipTypes.FIELD_INSTANCE
-            );
-            final String fieldID = recordFieldValue(field._2);
-            r.setProperty(FIELD_VALUE_ID_PROPERTY, fieldID);
-        });
+        // Relate the constant field node to its version.
+        // This vertex holds the field value as a property.
+        // A null value is treated as an absent field, as ValueDictionary does.
+        final int valueID = dictionary.encode(field._2);
+        if (valueID == ValueDictionary.ABSENT) {
+            return;
+        }
+        final Relationship r = fieldNode.createRelationshipTo(
+                versionNode,
+                RelationshipTypes.FIELD_INSTANCE
+        );
+        r.setProperty(FIELD_VALUE_ID_PROPERTY, valueID);
     }
 
     private void withinTransaction(
@@ -287,97 +322,49 @@ class ConstantsGraphImpl
         }
     }
 
+    /**
+     * Field nodes are created by this instance only, the database being its own.
+     */
     public int constantFieldsCount() {
-        final ResourceIterator<Object> resultIterator =
-                db.execute(
-                        "MATCH (n:CONSTANT_FIELD) RETURN count(n) as count"
-                )
-                        .columnAs("count");
-        final Object result = resultIterator.next();
-        return Integer.parseInt(result.toString());
+        return fieldNodes.size();
     }
 
     public List<ConstancyViolation> constancyViolationDescriptions() {
-        java.util.List<ConstancyViolation> violations = new ArrayList<>();
-
-        withinTransaction(() -> {
-            final ResourceIterator<Node> fields = db.findNodes(NodeLabels.CONSTANT_FIELD);
-            fields.forEachRemaining(field -> {
-                final String fullyQualifiedFieldName = String.valueOf(field.getProperty(FIELD_FULLY_QUALIFIED_NAME_PROPERTY));
-                final SortedMap<String, Option<Object>> version2value = this.versionStrings.toSortedMap(
-                        v -> v,
-                        v -> Option.none()
-                );
-                final Iterable<Relationship> fieldInstances =
-                        field.getRelationships(Direction.OUTGOING, RelationshipTypes.FIELD_INSTANCE);
-
-                final BiFunction<SortedMap<String, Option<Object>>, Relationship, SortedMap<String, Option<Object>>> noteFieldInstanceValue =
-                        (v2v, r) -> v2v.put(
-                                String.valueOf(r.getEndNode().getProperty(VERSION_STRING_PROPERTY)),
-                                Option.of(
-                                        fieldValueStore.get(r.getProperty(FIELD_VALUE_ID_PROPERTY))
-                                )
-                        );
-
-                final Predicate<Tuple2<SimpleVersionRange, Option<Object>>> undefVal = e -> e._2.isEmpty();
-
-                final SortedMap<SimpleVersionRange, Option<Object>> valueByVersion = Stream
-                        .ofAll(fieldInstances)
-                        .foldLeft(version2value, noteFieldInstanceValue)
-                        .map((ver, val) -> new Tuple2<>(new SimpleVersionRange(ver, Option.none()), val));
-
-                final BiFunction<SortedMap<SimpleVersionRange, Option<Object>>,
-                        Tuple2<SimpleVersionRange, Option<Object>>,
-                        SortedMap<SimpleVersionRange, Option<Object>>>
-                        collapseAdjacentEntriesOfEqualValue =
-                        (v2v, cur) -> {
-                            final Tuple2<SimpleVersionRange, Option<Object>> prev = v2v.last();
-                            if (prev._2.equals(cur._2)) {
-                                return v2v.dropRight(1).put(
-                                        new SimpleVersionRange(
-                                                prev._1.start, Option.of(cur._1.start)),
-                                        prev._2
-                                );
-                            } else {
-                                return v2v.put(cur);
-                            }
-                        };
-
-                final SortedMap<SimpleVersionRange, Option<Object>> roughHistory =
-                        valueByVersion
-                                .drop(1)
-                                .foldLeft(valueByVersion.take(1), collapseAdjacentEntriesOfEqualValue);
-
-                final UnaryOperator<SortedMap<SimpleVersionRange, Option<Object>>> trimUndefValEnds =
-                        hist -> {
-                            final SortedMap<SimpleVersionRange, Option<Object>> histHead = undefVal.test(roughHistory.take(1).get()) ? hist.drop(1) : hist;
-                            return undefVal.test(histHead.takeRight(1).get()) ? histHead.dropRight(1) : histHead;
-                        };
-
-                final SortedMap<SimpleVersionRange, Option<Object>> fineHistory =
-                        roughHistory.size() >= 2 ? trimUndefValEnds.apply(roughHistory) : roughHistory;
-
-                if (fineHistory.isEmpty()) {
-                    throw new SneakyMojoException(
-                            new MojoExecutionException(
-                                    VPE1InternalError.message(
-                                            String.format(
-                                                    "Field %s was recorded as being subject to @Constant constraints " +
-                                                            "but was calculated as not being defined in any version",
-                                                    fullyQualifiedFieldName
-                                            ))
-                                            .render(mojo)
-                            )
-                    );
-                }
-                // When fineHistory.length() == 1, the field value is constant throughout its recorded range.
-                else if (fineHistory.length() >= 2) {
-                    final ConstancyViolation cv = new ConstancyViolation(fullyQualifiedFieldName, fineHistory.toList());
-                    violations.add(cv);
-                }
-
-            });
-        });
+        final java.util.List<ConstancyViolation> violations = new ArrayList<>();
+
+        // Versions are indexed by ordinal, and recorded versions also by their position
+        // among the recorded versions
+        final SimpleVersionRange[] versions = catalog.inVersionOrder().toJavaArray(SimpleVersionRange[]::new);
+        final int[] positions = new int[versions.length];
+        final java.util.List<Integer> recordedBefore = new ArrayList<>(versions.length + 1);
+        final java.util.List<SimpleVersionRange> recorded = new ArrayList<>();
+        for (int ordinal = 0; ordinal < versions.length; ordinal++) {
+            recordedBefore.add(recorded.size());
+            positions[ordinal] = recorded.size();
+            if (recordedVersions.contains(versions[ordinal].start)) {
+                recorded.add(versions[ordinal]);
+            }
+        }
+        recordedBefore.add(recorded.size());
+        final SimpleVersionRange[] recordedInVersionOrder = recorded.toArray(new SimpleVersionRange[0]);
+
+        withinTransaction(() -> db.execute(
+                VIOLATING_FIELDS_QUERY,
+                Collections.singletonMap("recordedBefore", recordedBefore)
+        ).forEachRemaining(row -> {
+            final int[] codes = new int[recordedInVersionOrder.length];
+            final Iterator<?> valueIDs = ((java.util.List<?>) row.get("valueIDs")).iterator();
+            for (final Object ordinal : (java.util.List<?>) row.get("ordinals")) {
+                codes[positions[((Number) ordinal).intValue()]] = ((Number) valueIDs.next()).intValue();
+            }
+            ConstancyAnalysis.violationOf(
+                    mojo,
+                    String.valueOf(row.get("field")),
+                    recordedInVersionOrder,
+                    codes,
+                    dictionary::decode
+            ).forEach(violations::add);
+        }));
 
         return List.ofAll(violations);
     }
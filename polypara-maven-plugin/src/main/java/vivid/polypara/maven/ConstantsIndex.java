@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Compact binary index of the {@code Constant} fields of a Jar file, held within the Jar
+ * file itself as the entry {@code POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME}. The index is
+ * written into the build output directory before packaging, so that the Jar file takes it
+ * in like any other resource.
+ *
+ * Reading this single entry replaces scanning every class of a released artifact. Fields
+ * are grouped by their class, so that each class name is stored once: the index holds
+ * {@code MAGIC}, {@code FORMAT_VERSION} and the number of classes, then for each class its
+ * name and number of fields, then for each field its simple name and tagged value.
+ */
+class ConstantsIndex {
+
+    /**
+     * Increment whenever the index format or the semantics of the indexed fields change.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x50504349;    // "PPCI"
+
+    private ConstantsIndex() {
+        // Hide the public constructor
+    }
+
+    static byte[] encode(
+            final List<Tuple2<String, Object>> fields
+    ) throws IOException {
+        final Map<String, java.util.List<Tuple2<String, Object>>> classes = new LinkedHashMap<>();
+        for (final Tuple2<String, Object> field : fields) {
+            if (!ConstantValues.isEncodable(field._2)) {
+                throw new IOException("Value of unsupported type: " + field._1);
+            }
+            final int separator = field._1.lastIndexOf('.');
+            classes.computeIfAbsent(field._1.substring(0, separator), c -> new ArrayList<>())
+                    .add(new Tuple2<>(field._1.substring(separator + 1), field._2));
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(classes.size());
+            for (final Map.Entry<String, java.util.List<Tuple2<String, Object>>> clazz : classes.entrySet()) {
+                out.writeUTF(clazz.getKey());
+                out.writeInt(clazz.getValue().size());
+                for (final Tuple2<String, Object> field : clazz.getValue()) {
+                    out.writeUTF(field._1);
+                    ConstantValues.write(out, field._2);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param symbols interns the names of the indexed fields
+     * @return the indexed fields, or none if the index is of another format
+     */
+    static Option<List<Tuple2<String, Object>>> decode(
+            final DataInput in,
+            final SymbolTable symbols
+    ) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            return Option.none();
+        }
+        final ArrayList<Tuple2<String, Object>> fields = new ArrayList<>();
+        final int classCount = in.readInt();
+        for (int c = 0; c < classCount; c++) {
+            final SymbolTable.ClassSymbol clazz = symbols.classSymbol(in.readUTF());
+            final int fieldCount = in.readInt();
+            for (int f = 0; f < fieldCount; f++) {
+                fields.add(new Tuple2<>(
+                        symbols.fullyQualifiedName(clazz, in.readUTF()),
+                        ConstantValues.read(in)
+                ));
+            }
+        }
+        return Option.of(List.ofAll(fields));
+    }
+
+    /**
+     * Reads only the index entry of the Jar file, looking it up in the central directory.
+     *
+     * @return the indexed fields, or none if the Jar file holds no index of this format,
+     *   such as Jar files built before the index existed
+     */
+    static Either<Message, Option<List<Tuple2<String, Object>>>> readFromJarFile(
+            final Mojo mojo,
+            final File file
+    ) {
+        try {
+            final Option<byte[]> index = indexEntryOf(file);
+            if (index.isEmpty()) {
+                mojo.getLog().debug("No constants index in Jar file " + file.getAbsolutePath());
+                return Either.right(Option.none());
+            }
+            final Option<List<Tuple2<String, Object>>> fields =
+                    decode(new DataInputStream(new ByteArrayInputStream(index.get())), mojo.getSymbolTable());
+            if (fields.isDefined()) {
+                mojo.getLog().debug("Read the constants index of Jar file " + file.getAbsolutePath());
+            } else {
+                mojo.getLog().debug("Ignoring constants index of another format in Jar file " + file.getAbsolutePath());
+            }
+            return Either.right(fields);
+        } catch (final IOException | UncheckedIOException e) {
+            return Either.left(
+                    VPE4ClassReadFailure.message(
+                            Static.pathInJarFile(file, Static.POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME),
+                            e
+                    )
+            );
+        }
+    }
+
+    private static Option<byte[]> indexEntryOf(
+            final File file
+    ) throws IOException {
+        final Option<MappedJarFile> mapped = MappedJarFile.open(file);
+        if (mapped.isDefined()) {
+            try (
+                    final MappedJarFile jarFile = mapped.get()
+            ) {
+                final Option<MappedJarFile.Entry> entry = jarFile.find(Static.POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME);
+                if (entry.isEmpty()) {
+                    return Option.none();
+                }
+                final ByteBuffer contents = jarFile.contents(entry.get());
+                final byte[] bytes = new byte[contents.remaining()];
+                contents.get(bytes);
+                return Option.of(bytes);
+            }
+        }
+
+        try (
+                final JarFile jarFile = new JarFile(file, false)
+        ) {
+            final ZipEntry entry = jarFile.getEntry(Static.POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME);
+            if (entry == null) {
+                return Option.none();
+            }
+            try (final InputStream in = jarFile.getInputStream(entry)) {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, n);
+                }
+                return Option.of(bytes.toByteArray());
+            }
+        }
+    }
+
+    /**
+     * Writes the index into the build output directory, replacing any index already
+     * present, for the Jar file to take it in as the project is packaged.
+     *
+     * @return the index file
+     */
+    static Path writeToDirectory(
+            final File directory,
+            final byte[] index
+    ) throws IOException {
+        final Path file = directory.toPath().resolve(Static.POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME);
+        Files.createDirectories(file.getParent());
+        Files.write(file, index);
+        return file;
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Manages {@code Constant}-related data in columnar structures.
+ *
+ * Each field is assigned a dense ID in order of first appearance and each version is
+ * assigned its ordinal within the list of all versions under consideration. Values are
+ * dictionary-encoded, and each version holds one column of value codes indexed by field ID,
+ * so that memory grows with the number of distinct values rather than with the number of
+ * field instances. Versions that are never recorded are disregarded.
+ *
+ * The columns and values are held in {@code ValueColumns}: on the Java heap for the
+ * {@code MEMORY} data store, see {@code HeapValueColumns}, and outside it for the
+ * {@code OFF_HEAP} data store, see {@code OffHeapValueColumns}.
+ */
+class ConstantsMemoryImpl
+        implements ConstantsData
+{
+
+    /**
+     * Number of fields examined together by one worker when computing violations in parallel.
+     */
+    private static final int FIELD_BATCH_SIZE = 1_024;
+
+    private final Mojo mojo;
+    private final VersionCatalog catalog;
+
+    /**
+     * Version string to its order of appearance in the list of all versions under consideration.
+     */
+    private final HashMap<String, Integer> versionOrdinals;
+
+    /**
+     * Fully-qualified field name to its field ID.
+     */
+    private final HashMap<String, Integer> fieldIDs;
+
+    /**
+     * Fully-qualified field names, indexed by field ID.
+     */
+    private final ArrayList<String> fieldNames;
+
+    private final ValueColumns columns;
+
+    /**
+     * Indexed by version ordinal.
+     */
+    private final boolean[] recorded;
+
+    ConstantsMemoryImpl(
+            final Mojo mojo,
+            final List<String> versionStrings
+    ) {
+        this(mojo, versionStrings, false);
+    }
+
+    /**
+     * @param digestLongStrings hold long strings as their digests only, see
+     *                          {@code ValueDictionary}
+     */
+    ConstantsMemoryImpl(
+            final Mojo mojo,
+            final List<String> versionStrings,
+            final boolean digestLongStrings
+    ) {
+        this(mojo, versionStrings, new HeapValueColumns(versionStrings.size(), digestLongStrings));
+    }
+
+    /**
+     * @param columns empty columns for each of the versions
+     */
+    ConstantsMemoryImpl(
+            final Mojo mojo,
+            final List<String> versionStrings,
+            final ValueColumns columns
+    ) {
+        this.mojo = mojo;
+        this.catalog = new VersionCatalog(versionStrings);
+
+        this.versionOrdinals = new HashMap<>();
+        versionStrings.zipWithIndex().forEach(v -> versionOrdinals.put(v._1, v._2));
+
+        this.fieldIDs = new HashMap<>();
+        this.fieldNames = new ArrayList<>();
+        this.columns = columns;
+        this.recorded = new boolean[versionStrings.size()];
+    }
+
+    public void close() {
+        columns.close();
+    }
+
+    private int findOrCreateField(
+            final String fullyQualifiedFieldName
+    ) {
+        final Integer existingID = fieldIDs.get(fullyQualifiedFieldName);
+        if (existingID != null) {
+            return existingID;
+        }
+
+        final int newID = fieldNames.size();
+        fieldIDs.put(fullyQualifiedFieldName, newID);
+        fieldNames.add(fullyQualifiedFieldName);
+        return newID;
+    }
+
+    public void recordConstantFields(
+            final String version,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        final Integer ordinal = versionOrdinals.get(version);
+        if (ordinal == null) {
+            throw new SneakyMojoException(
+                    new MojoExecutionException(
+                            VPE1InternalError.message(
+                                    String.format(
+                                            "Version %s is not among the versions under consideration",
+                                            version
+                                    ))
+                                    .render(mojo)
+                    )
+            );
+        }
+
+        recorded[ordinal] = true;
+        fields.forEach(f -> {
+            columns.put(ordinal, findOrCreateField(f._1), f._2);
+        });
+    }
+
+    public int constantFieldsCount() {
+        return fieldNames.size();
+    }
+
+    /**
+     * @param ordinals the ordinals of the recorded versions, in ascending version order
+     * @return true if the field is defined with the same value in every version between
+     *   its first and last appearance, determined from value codes alone
+     */
+    private boolean isConstant(
+            final int fieldID,
+            final int[] ordinals
+    ) {
+        int definedCode = ValueDictionary.ABSENT;
+        boolean absentSinceDefined = false;
+        for (final int ordinal : ordinals) {
+            final int c = columns.code(ordinal, fieldID);
+            if (c == ValueDictionary.ABSENT) {
+                absentSinceDefined = definedCode != ValueDictionary.ABSENT;
+            } else if (definedCode == ValueDictionary.ABSENT) {
+                definedCode = c;
+            } else if (c != definedCode || absentSinceDefined) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the violations among the fields with IDs from {@code fromID} up to, but not
+     *   including, {@code toID}, in order of field ID
+     */
+    private java.util.List<ConstancyViolation> violationsOf(
+            final int fromID,
+            final int toID,
+            final SimpleVersionRange[] versions,
+            final int[] ordinals
+    ) {
+        final java.util.List<ConstancyViolation> violations = new ArrayList<>();
+        final int[] codes = new int[ordinals.length];
+        for (int fieldID = fromID; fieldID < toID; fieldID++) {
+            if (isConstant(fieldID, ordinals)) {
+                continue;
+            }
+            for (int i = 0; i < ordinals.length; i++) {
+                codes[i] = columns.code(ordinals[i], fieldID);
+            }
+            ConstancyAnalysis.violationOf(
+                    mojo,
+                    fieldNames.get(fieldID),
+                    versions,
+                    codes,
+                    columns::decode
+            ).forEach(violations::add);
+        }
+        return violations;
+    }
+
+    /**
+     * Fields are examined in batches of {@code FIELD_BATCH_SIZE} on the class executor,
+     * when scanning in parallel. The violations are reported in order of field ID either
+     * way.
+     */
+    public List<ConstancyViolation> constancyViolationDescriptions() {
+        final int[] ordinals = Arrays.stream(catalog.ordinalsInVersionOrder())
+                .filter(ordinal -> recorded[ordinal])
+                .toArray();
+        final SimpleVersionRange[] versions = catalog.inVersionOrder()
+                .filter(v -> recorded[versionOrdinals.get(v.start)])
+                .toJavaArray(SimpleVersionRange[]::new);
+        final int fieldCount = fieldNames.size();
+
+        final Option<ExecutorService> executor = mojo.getScanExecution().classExecutor();
+        if (executor.isEmpty() || fieldCount <= FIELD_BATCH_SIZE) {
+            return List.ofAll(violationsOf(0, fieldCount, versions, ordinals));
+        }
+
+        final java.util.List<Future<java.util.List<ConstancyViolation>>> batches = new ArrayList<>();
+        for (int fromID = 0; fromID < fieldCount; fromID += FIELD_BATCH_SIZE) {
+            final int from = fromID;
+            final int to = Math.min(fromID + FIELD_BATCH_SIZE, fieldCount);
+            batches.add(executor.get().submit(() -> violationsOf(from, to, versions, ordinals)));
+        }
+        final java.util.List<ConstancyViolation> violations = new ArrayList<>();
+        batches.forEach(batch -> violations.addAll(ScanExecution.await(batch)));
+        return List.ofAll(violations);
+    }
+
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Manages {@code Constant}-related data in run files on disk, so that heap use doesn't
+ * depend on the number of fields times the number of versions.
+ *
+ * The fields of each version are sorted by their fully-qualified name and written to a run
+ * file of their own in a temporary directory, holding the number of fields and then each
+ * field's name and tagged value. Fields are then examined by a k-way merge of the versions'
+ * run files, which streams each field's values in all versions past the constancy check
+ * exactly once, holding one value per version at a time. Violations are reported in order
+ * of field name. Versions that are never recorded are disregarded.
+ *
+ * At most {@code MERGE_FAN_IN} run files are open at once. With more versions than that,
+ * the runs are first merged in groups into intermediate runs, pass after pass, until few
+ * enough remain. An intermediate run holds each field's name followed by the number of its
+ * versions and its position in version order and tagged value in each, each field preceded
+ * by {@code true} and the last followed by {@code false}.
+ */
+class ConstantsSpillImpl
+        implements ConstantsData
+{
+
+    private static final String RUN_FILENAME_SUFFIX = ".run";
+
+    /**
+     * Maximum number of run files merged at once, well within the usual limit on open files.
+     */
+    private static final int MERGE_FAN_IN = 64;
+
+    /**
+     * Position of the runs holding the fields of several versions.
+     */
+    private static final int MERGED = -1;
+
+    private final Mojo mojo;
+    private final VersionCatalog catalog;
+
+    /**
+     * Version string to its order of appearance in the list of all versions under consideration.
+     */
+    private final HashMap<String, Integer> versionOrdinals;
+
+    private final Path runDirectory;
+    private final int mergeFanIn;
+
+    /**
+     * Indexed by version ordinal.
+     */
+    private final boolean[] recorded;
+
+    /**
+     * The number of fields and the violations, once merged. Recording a version discards them.
+     */
+    private Option<Tuple2<Integer, List<ConstancyViolation>>> merged = Option.none();
+
+    ConstantsSpillImpl(
+            final Mojo mojo,
+            final List<String> versionStrings
+    ) throws IOException {
+        this(mojo, versionStrings, MERGE_FAN_IN);
+    }
+
+    /**
+     * @param mergeFanIn the maximum number of run files merged at once, at least 2
+     */
+    ConstantsSpillImpl(
+            final Mojo mojo,
+            final List<String> versionStrings,
+            final int mergeFanIn
+    ) throws IOException {
+        this.mojo = mojo;
+        this.mergeFanIn = mergeFanIn;
+        this.catalog = new VersionCatalog(versionStrings);
+
+        this.versionOrdinals = new HashMap<>();
+        versionStrings.zipWithIndex().forEach(v -> versionOrdinals.put(v._1, v._2));
+
+        this.runDirectory = Files.createTempDirectory("polypara-spill");
+        this.recorded = new boolean[versionStrings.size()];
+    }
+
+    public void close() {
+        try {
+            FileUtils.deleteDirectory(runDirectory.toFile());
+        } catch (final IOException e) {
+            mojo.getLog().info(
+                    "Could not delete temporary run file directory: " + runDirectory,
+                    e
+            );
+        }
+    }
+
+    private Path runFile(
+            final int ordinal
+    ) {
+        return runDirectory.resolve(ordinal + RUN_FILENAME_SUFFIX);
+    }
+
+    private static SneakyMojoException internalError(
+            final Mojo mojo,
+            final String message,
+            final Exception cause
+    ) {
+        return new SneakyMojoException(
+                new MojoExecutionException(
+                        VPE1InternalError.message(message, cause).render(mojo)
+                )
+        );
+    }
+
+    public void recordConstantFields(
+            final String version,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        final Integer ordinal = versionOrdinals.get(version);
+        if (ordinal == null) {
+            throw new SneakyMojoException(
+                    new MojoExecutionException(
+                            VPE1InternalError.message(
+                                    String.format(
+                                            "Version %s is not among the versions under consideration",
+                                            version
+                                    ))
+                                    .render(mojo)
+                    )
+            );
+        }
+
+        try (
+                final DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(runFile(ordinal))))
+        ) {
+            out.writeInt(fields.size());
+            for (final Tuple2<String, Object> field : fields.sortBy(Tuple2::_1)) {
+                out.writeUTF(field._1);
+                ConstantValues.write(out, field._2);
+            }
+        } catch (final IOException e) {
+            throw internalError(mojo, "Could not write the run file of version " + version, e);
+        }
+        recorded[ordinal] = true;
+        merged = Option.none();
+    }
+
+    public int constantFieldsCount() {
+        return merge()._1;
+    }
+
+    public List<ConstancyViolation> constancyViolationDescriptions() {
+        return merge()._2;
+    }
+
+    /**
+     * The fields of a run file, read one at a time along with their values in each of the
+     * run's versions.
+     */
+    private static class Run {
+
+        private final DataInputStream in;
+        private final int order;
+
+        /**
+         * Position in version order of the run's version, or {@code MERGED}.
+         */
+        private final int position;
+
+        /**
+         * Fields left to read from a version's run file.
+         */
+        private int remaining;
+
+        private String name;
+        private int count;
+        private int[] positions = new int[1];
+        private Object[] values = new Object[1];
+
+        /**
+         * @param order breaks ties between the runs' fields of equal names
+         */
+        private Run(
+                final Path file,
+                final int order,
+                final int position
+        ) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            this.order = order;
+            this.position = position;
+            try {
+                this.remaining = position == MERGED ? 0 : in.readInt();
+            } catch (final IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return false once the run is exhausted
+         */
+        private boolean advance() throws IOException {
+            if (position != MERGED) {
+                if (remaining == 0) {
+                    return false;
+                }
+                remaining--;
+                name = in.readUTF();
+                count = 1;
+                positions[0] = position;
+                values[0] = ConstantValues.read(in);
+                return true;
+            }
+
+            if (!in.readBoolean()) {
+                return false;
+            }
+            name = in.readUTF();
+            count = in.readInt();
+            if (positions.length < count) {
+                positions = new int[count];
+                values = new Object[count];
+            }
+            for (int i = 0; i < count; i++) {
+                positions[i] = in.readInt();
+                values[i] = ConstantValues.read(in);
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * Receives each field of a merge in order of field name, with its position in version
+     * order and value in each of the versions in which it appears.
+     */
+    @FunctionalInterface
+    private interface MergedFieldConsumer {
+
+        void accept(
+                String name,
+                int[] positions,
+                Object[] values,
+                int count
+        ) throws IOException;
+
+    }
+
+    private Tuple2<Integer, List<ConstancyViolation>> merge() {
+        if (merged.isEmpty()) {
+            try {
+                merged = Option.of(mergeRuns());
+            } catch (final IOException e) {
+                throw internalError(mojo, "Could not merge the run files", e);
+            }
+        }
+        return merged.get();
+    }
+
+    /**
+     * Merges the run files, each paired with its position in version order or
+     * {@code MERGED}, with at most this many open at once.
+     */
+    private static void mergeRuns(
+            final java.util.List<Tuple2<Path, Integer>> runFiles,
+            final int versionCount,
+            final MergedFieldConsumer consumer
+    ) throws IOException {
+        final PriorityQueue<Run> heads = new PriorityQueue<>(
+                Math.max(1, runFiles.size()),
+                Comparator.<Run, String>comparing(r -> r.name).thenComparingInt(r -> r.order)
+        );
+        final ArrayList<Run> runs = new ArrayList<>();
+        try {
+            for (final Tuple2<Path, Integer> runFile : runFiles) {
+                final Run run = new Run(runFile._1, runs.size(), runFile._2);
+                runs.add(run);
+                if (run.advance()) {
+                    heads.add(run);
+                }
+            }
+
+            final int[] positions = new int[versionCount];
+            final Object[] values = new Object[versionCount];
+            while (!heads.isEmpty()) {
+                final String name = heads.peek().name;
+                int count = 0;
+                while (!heads.isEmpty() && heads.peek().name.equals(name)) {
+                    final Run run = heads.poll();
+                    System.arraycopy(run.positions, 0, positions, count, run.count);
+                    System.arraycopy(run.values, 0, values, count, run.count);
+                    count += run.count;
+                    if (run.advance()) {
+                        heads.add(run);
+                    }
+                }
+                consumer.accept(name, positions, values, count);
+            }
+        } finally {
+            for (final Run run : runs) {
+                run.in.close();
+            }
+        }
+    }
+
+    /**
+     * Merges the run files in groups of {@code mergeFanIn} into intermediate runs, pass
+     * after pass, deleting the intermediate runs of the previous pass.
+     *
+     * @return at most {@code mergeFanIn} run files holding all the fields
+     */
+    private java.util.List<Tuple2<Path, Integer>> mergeIntermediateRuns(
+            final java.util.List<Tuple2<Path, Integer>> runFiles,
+            final int versionCount
+    ) throws IOException {
+        java.util.List<Tuple2<Path, Integer>> remaining = runFiles;
+        for (int pass = 0; remaining.size() > mergeFanIn; pass++) {
+            final java.util.List<Tuple2<Path, Integer>> intermediate = new ArrayList<>();
+            for (int from = 0; from < remaining.size(); from += mergeFanIn) {
+                final java.util.List<Tuple2<Path, Integer>> group =
+                        remaining.subList(from, Math.min(from + mergeFanIn, remaining.size()));
+                final Path file = runDirectory.resolve("merge-" + pass + "-" + intermediate.size() + RUN_FILENAME_SUFFIX);
+                try (
+                        final DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(Files.newOutputStream(file)))
+                ) {
+                    mergeRuns(group, versionCount, (name, positions, values, count) -> {
+                        out.writeBoolean(true);
+                        out.writeUTF(name);
+                        out.writeInt(count);
+                        for (int i = 0; i < count; i++) {
+                            out.writeInt(positions[i]);
+                            ConstantValues.write(out, values[i]);
+                        }
+                    });
+                    out.writeBoolean(false);
+                }
+                for (final Tuple2<Path, Integer> merged : group) {
+                    if (merged._2 == MERGED) {
+                        Files.delete(merged._1);
+                    }
+                }
+                intermediate.add(new Tuple2<>(file, MERGED));
+            }
+            mojo.getLog().debug(String.format(
+                    "Merged %d run files into %d intermediate runs",
+                    remaining.size(),
+                    intermediate.size()
+            ));
+            remaining = intermediate;
+        }
+        return remaining;
+    }
+
+    private Tuple2<Integer, List<ConstancyViolation>> mergeRuns() throws IOException {
+        final int[] ordinals = Arrays.stream(catalog.ordinalsInVersionOrder())
+                .filter(ordinal -> recorded[ordinal])
+                .toArray();
+        final SimpleVersionRange[] versions = catalog.inVersionOrder()
+                .filter(v -> recorded[versionOrdinals.get(v.start)])
+                .toJavaArray(SimpleVersionRange[]::new);
+
+        final java.util.List<Tuple2<Path, Integer>> runFiles = new ArrayList<>();
+        for (int position = 0; position < ordinals.length; position++) {
+            runFiles.add(new Tuple2<>(runFile(ordinals[position]), position));
+        }
+        final java.util.List<Tuple2<Path, Integer>> finalRunFiles = mergeIntermediateRuns(runFiles, ordinals.length);
+
+        final int[] fieldCount = { 0 };
+        final java.util.List<ConstancyViolation> violations = new ArrayList<>();
+        final Object[] valuesInVersionOrder = new Object[ordinals.length];
+        try {
+            mergeRuns(finalRunFiles, ordinals.length, (name, positions, values, count) -> {
+                Arrays.fill(valuesInVersionOrder, null);
+                for (int i = 0; i < count; i++) {
+                    valuesInVersionOrder[positions[i]] = values[i];
+                }
+                fieldCount[0]++;
+                if (!isConstant(valuesInVersionOrder)) {
+                    violationOf(name, versions, valuesInVersionOrder).forEach(violations::add);
+                }
+            });
+        } finally {
+            for (final Tuple2<Path, Integer> runFile : finalRunFiles) {
+                if (runFile._2 == MERGED) {
+                    Files.deleteIfExists(runFile._1);
+                }
+            }
+        }
+        return new Tuple2<>(fieldCount[0], List.ofAll(violations));
+    }
+
+    /**
+     * @param values the field's value in each recorded version, in ascending version order,
+     *               {@code null} where absent
+     * @return true if the field is defined with the same value in every version between
+     *   its first and last appearance
+     */
+    private static boolean isConstant(
+            final Object[] values
+    ) {
+        Object defined = null;
+        boolean absentSinceDefined = false;
+        for (final Object value : values) {
+            if (value == null) {
+                absentSinceDefined = defined != null;
+            } else if (defined == null) {
+                defined = value;
+            } else if (!value.equals(defined) || absentSinceDefined) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dictionary-encodes the values of this one field to compute its history.
+     */
+    private Option<ConstancyViolation> violationOf(
+            final String fullyQualifiedFieldName,
+            final SimpleVersionRange[] versions,
+            final Object[] values
+    ) {
+        final ValueDictionary dictionary = new ValueDictionary();
+        final int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            codes[i] = dictionary.encode(values[i]);
+        }
+        return ConstancyAnalysis.violationOf(
+                mojo,
+                fullyQualifiedFieldName,
+                versions,
+                codes,
+                dictionary::decode
+        );
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Restores the strings that were held as digests only, see {@code ValueDictionary}, in
+ * the constancy violations about to be reported.
+ *
+ * Each version holding a digested string is read once more, through the constants index,
+ * the constant table cache or scanning as before, and only the values of the reported
+ * fields are retained. A value whose digest no longer matches is left digested.
+ */
+class DigestedValues {
+
+    private DigestedValues() {
+        // Hide the public constructor
+    }
+
+    static Either<Message, List<ConstancyViolation>> restore(
+            final Mojo mojo,
+            final List<ConstancyViolation> violations
+    ) {
+        // The value of a version range is that of its start version
+        final Map<String, Set<String>> digestedFieldsByVersion = new LinkedHashMap<>();
+        violations.forEach(violation -> violation.fieldValueByVersionRange
+                .filter(v -> isDigest(v._2))
+                .forEach(v -> digestedFieldsByVersion
+                        .computeIfAbsent(v._1.start, version -> new HashSet<>())
+                        .add(violation.fieldName)));
+        if (digestedFieldsByVersion.isEmpty()) {
+            return Either.right(violations);
+        }
+
+        final String currentVersion = mojo.getMavenProject().getVersion();
+        mojo.getLog().debug(
+                "Re-reading digested values from versions:  " +
+                        Static.humanReadableVersionList(List.ofAll(digestedFieldsByVersion.keySet()))
+        );
+        final HashMap<Tuple2<String, String>, Object> values = new HashMap<>();
+        final Either<Message, Integer> read = VerificationPipeline.run(
+                mojo,
+                List.ofAll(digestedFieldsByVersion.keySet()).remove(currentVersion),
+                (version, fields) -> fields
+                        .filter(f -> digestedFieldsByVersion.get(version).contains(f._1))
+                        .forEach(f -> values.put(new Tuple2<>(version, f._1), f._2)),
+                new ScannedClassFiles<>(),
+                digestedFieldsByVersion.containsKey(currentVersion)
+        );
+        if (read.isLeft()) {
+            return Either.left(read.getLeft());
+        }
+
+        return Either.right(violations.map(violation -> new ConstancyViolation(
+                violation.fieldName,
+                violation.fieldValueByVersionRange.map(v -> {
+                    if (!isDigest(v._2)) {
+                        return v;
+                    }
+                    final Object value = values.get(new Tuple2<>(v._1.start, violation.fieldName));
+                    return value instanceof String && ValueDictionary.Digest.of((String) value).equals(v._2.get())
+                            ? new Tuple2<>(v._1, Option.of(value))
+                            : v;
+                })
+        )));
+    }
+
+    private static boolean isDigest(
+            final Option<Object> value
+    ) {
+        return value.isDefined() && value.get() instanceof ValueDictionary.Digest;
+    }
+
+}
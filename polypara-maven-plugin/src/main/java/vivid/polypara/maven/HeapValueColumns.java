@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.util.Arrays;
+
+/**
+ * Value columns held on the Java heap as {@code int} arrays, the values being held in a
+ * {@code ValueDictionary}.
+ */
+class HeapValueColumns
+        implements ValueColumns
+{
+
+    private final ValueDictionary dictionary;
+
+    /**
+     * Indexed first by version ordinal and then by field ID. Columns grow on demand; field
+     * IDs beyond the end of a column are absent from that version.
+     */
+    private final int[][] columns;
+
+    /**
+     * @param digestLongStrings hold long strings as their digests only, see
+     *                          {@code ValueDictionary}
+     */
+    HeapValueColumns(
+            final int versionCount,
+            final boolean digestLongStrings
+    ) {
+        this.dictionary = new ValueDictionary(digestLongStrings);
+        this.columns = new int[versionCount][0];
+    }
+
+    @Override
+    public int code(
+            final int ordinal,
+            final int fieldID
+    ) {
+        final int[] column = columns[ordinal];
+        return fieldID < column.length ? column[fieldID] : ValueDictionary.ABSENT;
+    }
+
+    @Override
+    public void put(
+            final int ordinal,
+            final int fieldID,
+            final Object value
+    ) {
+        if (fieldID >= columns[ordinal].length) {
+            columns[ordinal] = Arrays.copyOf(
+                    columns[ordinal],
+                    Math.max(fieldID + 1, columns[ordinal].length * 2)
+            );
+        }
+        columns[ordinal][fieldID] = dictionary.encode(value);
+    }
+
+    @Override
+    public Object decode(
+            final int code
+    ) {
+        return dictionary.decode(code);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+}
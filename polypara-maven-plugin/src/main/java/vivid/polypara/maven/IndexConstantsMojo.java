@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.i18n.I18N;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes the constants index of the project's classes into the build output directory,
+ * for the Jar file to take in as it is packaged, so that later verifications of this
+ * version read the index rather than scanning every class.
+ *
+ * The Jar file itself is left to the archiver, which applies
+ * {@code project.build.outputTimestamp} to the index as to every other entry, and to any
+ * signing that follows.
+ *
+ * @since 0.5.0
+ */
+@org.apache.maven.plugins.annotations.Mojo(
+        name = Static.POM_POLYPARA_INDEX_MOJO_NAME,
+        defaultPhase = LifecyclePhase.PREPARE_PACKAGE
+)
+public class IndexConstantsMojo extends AbstractMojo implements Mojo {
+
+    private I18nContext i18nContext;
+    private final SymbolTable symbolTable = new SymbolTable();
+
+
+
+    //
+    // Maven execution environment configuration
+    //
+
+    @Component
+    private I18N i18n;
+
+    /**
+     * The entry point to Maven Artifact Resolver, i.e. the component doing all the work.
+     */
+    @Component
+    private RepositorySystem repositorySystem;
+
+    /**
+     * The current repository/network configuration of Maven.
+     */
+    @Parameter(readonly = true, property = "repositorySystemSession")
+    private RepositorySystemSession repositorySystemSession;
+
+    /**
+     * The Maven Project Object
+     */
+    @Parameter(readonly = true, required = true, property = "project")
+    private MavenProject mavenProject;
+
+    /**
+     * The project's remote repositories to use for the resolution.
+     */
+    @Parameter(readonly = true, property = "project.remoteProjectRepositories")
+    private java.util.List<RemoteRepository> remoteRepositories;
+
+
+
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * Flag to easily skip execution.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_SKIP_PROPERTY_KEY, defaultValue = "false")
+    private boolean skip;
+
+
+
+    //
+    // Provide access to this Mojo's execution context
+    //
+
+    @Override
+    public Option<ConstantTableCache> getConstantTableCache() {
+        return Option.none();
+    }
+
+    @Override
+    public I18nContext getI18nContext() {
+        return i18nContext;
+    }
+
+    @Override
+    public MavenProject getMavenProject() {
+        return mavenProject;
+    }
+
+    @Override
+    public VerifyConstantsMojo.ReportingLevel getReportingLevel() {
+        return VerifyConstantsMojo.ReportingLevel.ERROR;
+    }
+
+    @Override
+    public java.util.List<RemoteRepository> getRemoteRepositories() {
+        return remoteRepositories;
+    }
+
+    @Override
+    public int getResolutionThreads() {
+        return 1;
+    }
+
+    @Override
+    public ScanExecution getScanExecution() {
+        return ScanExecution.sequential();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    @Override
+    public RepositorySystem getRepositorySystem() {
+        return repositorySystem;
+    }
+
+    @Override
+    public RepositorySystemSession getRepositorySystemSession() {
+        return repositorySystemSession;
+    }
+
+
+
+    //
+    // Mojo logic
+    //
+
+    public void execute() throws MojoExecutionException {
+        i18nContext = new I18nContext(i18n);
+
+        if (skip) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.polypara.action.skipping-execution-via-configuration",
+                            Static.POM_POLYPARA_SKIP_PROPERTY_KEY
+                    )
+            );
+            return;
+        }
+
+        final File outputDirectory = new File(mavenProject.getBuild().getOutputDirectory());
+        if (!outputDirectory.isDirectory()) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.polypara.action.skipping-index-without-build-output",
+                            Static.mavenGAOf(mavenProject)
+                    )
+            );
+            return;
+        }
+
+        // Index the classes about to be packaged, being those that a later verification
+        // would otherwise scan.
+        final Either<Message, List<Tuple2<String, Object>>> fields =
+                MavenArtifactResolution.constantFieldsOfCurrentVersion(this);
+        if (fields.isLeft()) {
+            final Message message = fields.getLeft();
+            throw new MojoExecutionException(
+                    message.render(this),
+                    message.getCause().getOrNull()
+            );
+        }
+
+        final Path indexFile;
+        try {
+            indexFile = ConstantsIndex.writeToDirectory(outputDirectory, ConstantsIndex.encode(fields.get()));
+        } catch (final IOException e) {
+            throw new MojoExecutionException(
+                    VPE1InternalError.message(
+                            "Could not write the constants index into " + outputDirectory.getAbsolutePath(),
+                            e
+                    )
+                            .render(this),
+                    e
+            );
+        }
+
+        getLog().info(
+                i18nContext.getText(
+                        "vivid.polypara.action.indexed-n-constant-fields",
+                        fields.get().size(),
+                        indexFile
+                )
+        );
+    }
+
+}
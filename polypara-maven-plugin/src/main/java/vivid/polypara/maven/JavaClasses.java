@@ -14,13 +14,14 @@
 
 package vivid.polypara.maven;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 class JavaClasses {
 
     private static final String JAVA_CLASS_FILENAME_SUFFIX = ".class";
 
-    private static final String JAVA_CLASS_FILE_MAGIC_HEADER = "cafebabe";
+    private static final int JAVA_CLASS_FILE_MAGIC = 0xCAFEBABE;
 
     private JavaClasses() {
         // Hide the public constructor
@@ -32,6 +33,15 @@ class JavaClasses {
         return filename.endsWith(JAVA_CLASS_FILENAME_SUFFIX);
     }
 
+    private static int magic(
+            final byte b0,
+            final byte b1,
+            final byte b2,
+            final byte b3
+    ) {
+        return (b0 & 0xFF) << 24 | (b1 & 0xFF) << 16 | (b2 & 0xFF) << 8 | (b3 & 0xFF);
+    }
+
     static boolean hasJavaClassFileMagic(
             final byte[] bytes
     ) {
@@ -39,11 +49,22 @@ class JavaClasses {
         if (bytes.length < 4) {
             return false;
         }
-        final String magic = String.format(
-                "%02X%02X%02X%02X",
-                bytes[0], bytes[1], bytes[2], bytes[3]
-        );
-        return JAVA_CLASS_FILE_MAGIC_HEADER.equalsIgnoreCase(magic);
+        return magic(bytes[0], bytes[1], bytes[2], bytes[3]) == JAVA_CLASS_FILE_MAGIC;
+    }
+
+    /**
+     * Examines the remaining bytes of the buffer without changing its position.
+     */
+    static boolean startsWithJavaClassFileMagic(
+            final ByteBuffer classFile
+    ) {
+        Objects.requireNonNull(classFile, "classFile is null");
+        if (classFile.remaining() < 4) {
+            return false;
+        }
+        final int p = classFile.position();
+        return magic(classFile.get(p), classFile.get(p + 1), classFile.get(p + 2), classFile.get(p + 3)) ==
+                JAVA_CLASS_FILE_MAGIC;
     }
 
 }
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only access to the entries of a Jar file through a memory mapping of the file.
+ *
+ * The central directory is walked directly, so entries can be selected by their name and
+ * size before any of their contents are read. Stored entries are handed out as views of
+ * the mapping without being copied; deflated entries are inflated into
+ * {@code ClassFileBuffers}. Jar signatures aren't verified. Once the buffers have grown to
+ * fit the largest entry, reading entries allocates nothing.
+ *
+ * Only archives of the original ZIP format are supported. ZIP64 archives, including
+ * those of more than 2 GiB, are left to {@code java.util.jar.JarFile}.
+ *
+ * Instances aren't thread-safe.
+ *
+ * @see <a href="https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT">ZIP File Format Specification</a>
+ */
+class MappedJarFile
+        implements Closeable
+{
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAXIMUM_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+    private static final int FLAG_ENCRYPTED = 0x1;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final long ZIP64_MAGIC_SIZE = 0xFFFFFFFFL;
+
+    private static final int MAXIMUM_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private static final byte[] CLASS_FILENAME_SUFFIX = ".class".getBytes(StandardCharsets.US_ASCII);
+
+    private final File file;
+    private final ByteBuffer mapping;
+    private final int centralDirectoryOffset;
+    private final int entryCount;
+    private final ByteBuffer mappingView;
+    private final ClassFileBuffers buffers;
+
+    /**
+     * A central directory record.
+     */
+    static class Entry {
+
+        private int nameOffset;
+        private int nameLength;
+        private int flags;
+        private int method;
+        private int crc;
+        private long compressedSize;
+        private long uncompressedSize;
+        private long localHeaderOffset;
+
+        int crc() {
+            return crc;
+        }
+
+        long uncompressedSize() {
+            return uncompressedSize;
+        }
+
+    }
+
+    private MappedJarFile(
+            final File file,
+            final ByteBuffer mapping,
+            final int centralDirectoryOffset,
+            final int entryCount,
+            final ClassFileBuffers buffers
+    ) {
+        this.file = file;
+        this.mapping = mapping;
+        this.centralDirectoryOffset = centralDirectoryOffset;
+        this.entryCount = entryCount;
+        this.mappingView = mapping.asReadOnlyBuffer();
+        this.buffers = buffers;
+    }
+
+    /**
+     * @return the mapped Jar file, inflating entries into buffers of its own, or none if the
+     *   archive can't be read by this class
+     */
+    static Option<MappedJarFile> open(
+            final File file
+    ) throws IOException {
+        return open(file, ClassFileBuffers::unpooled);
+    }
+
+    /**
+     * @param buffers supplies the buffers that entries are inflated into, which are closed
+     *   along with the Jar file
+     * @return the mapped Jar file, or none if the archive can't be read by this class
+     */
+    static Option<MappedJarFile> open(
+            final File file,
+            final Supplier<ClassFileBuffers> buffers
+    ) throws IOException {
+        final ByteBuffer mapping;
+        try (
+                final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)
+        ) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return Option.none();
+            }
+            // The mapping outlives the channel
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapping.order(ByteOrder.LITTLE_ENDIAN);
+
+        final int end = endOfCentralDirectory(mapping);
+        if (end < 0) {
+            throw new ZipException("End of central directory record not found in " + file);
+        }
+        final int entryCount = u2(mapping, end + 10);
+        final long centralDirectorySize = u4(mapping, end + 12);
+        final long centralDirectoryOffset = u4(mapping, end + 16);
+        if (entryCount == ZIP64_MAGIC_COUNT ||
+                centralDirectorySize == ZIP64_MAGIC_SIZE ||
+                centralDirectoryOffset == ZIP64_MAGIC_SIZE) {
+            return Option.none();
+        }
+        if (centralDirectoryOffset + centralDirectorySize > end) {
+            throw new ZipException("Invalid central directory in " + file);
+        }
+        return Option.of(new MappedJarFile(file, mapping, (int) centralDirectoryOffset, entryCount, buffers.get()));
+    }
+
+    private static int endOfCentralDirectory(
+            final ByteBuffer mapping
+    ) {
+        final int lowest = Math.max(0, mapping.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - MAXIMUM_COMMENT_LENGTH);
+        for (int i = mapping.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; i >= lowest; i--) {
+            // The archive comment may itself contain the signature
+            if (mapping.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE &&
+                    i + END_OF_CENTRAL_DIRECTORY_SIZE + u2(mapping, i + 20) == mapping.limit()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int u2(
+            final ByteBuffer b,
+            final int offset
+    ) {
+        return b.getShort(offset) & 0xFFFF;
+    }
+
+    private static long u4(
+            final ByteBuffer b,
+            final int offset
+    ) {
+        return b.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return the central directory records, in the order they appear in the archive.
+     *   The iterator throws {@code UncheckedIOException} upon a malformed record. It
+     *   returns the same {@code Entry} instance each time, updated to the next record.
+     */
+    Iterator<Entry> entries() {
+        return new Iterator<Entry>() {
+
+            private final Entry entry = new Entry();
+            private int index = 0;
+            private int offset = centralDirectoryOffset;
+
+            @Override
+            public boolean hasNext() {
+                return index < entryCount;
+            }
+
+            @Override
+            public Entry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (offset + CENTRAL_DIRECTORY_HEADER_SIZE > mapping.limit() ||
+                        mapping.getInt(offset) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+                    throw new UncheckedIOException(
+                            new ZipException("Invalid central directory record in " + file)
+                    );
+                }
+                entry.nameOffset = offset + CENTRAL_DIRECTORY_HEADER_SIZE;
+                entry.nameLength = u2(mapping, offset + 28);
+                entry.flags = u2(mapping, offset + 8);
+                entry.method = u2(mapping, offset + 10);
+                entry.crc = mapping.getInt(offset + 16);
+                entry.compressedSize = u4(mapping, offset + 20);
+                entry.uncompressedSize = u4(mapping, offset + 24);
+                entry.localHeaderOffset = u4(mapping, offset + 42);
+                offset += CENTRAL_DIRECTORY_HEADER_SIZE +
+                        entry.nameLength +
+                        u2(mapping, offset + 30) +
+                        u2(mapping, offset + 32);
+                index++;
+                return entry;
+            }
+
+        };
+    }
+
+    /**
+     * Looks up an entry by walking the central directory, comparing names without
+     * decoding them.
+     *
+     * @return the central directory record of the named entry
+     */
+    Option<Entry> find(
+            final String name
+    ) {
+        final byte[] sought = name.getBytes(StandardCharsets.UTF_8);
+        final Iterator<Entry> entries = entries();
+        while (entries.hasNext()) {
+            final Entry entry = entries.next();
+            if (entry.nameLength == sought.length && regionEquals(entry.nameOffset, sought)) {
+                return Option.of(entry);
+            }
+        }
+        return Option.none();
+    }
+
+    private boolean regionEquals(
+            final int offset,
+            final byte[] expected
+    ) {
+        for (int i = 0; i < expected.length; i++) {
+            if (mapping.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String name(
+            final Entry entry
+    ) {
+        final byte[] name = new byte[entry.nameLength];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = mapping.get(entry.nameOffset + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Examines the entry's name without decoding it.
+     */
+    boolean isJavaClassFile(
+            final Entry entry
+    ) {
+        final int suffixOffset = entry.nameOffset + entry.nameLength - CLASS_FILENAME_SUFFIX.length;
+        return entry.nameLength >= CLASS_FILENAME_SUFFIX.length &&
+                regionEquals(suffixOffset, CLASS_FILENAME_SUFFIX);
+    }
+
+    /**
+     * @return the uncompressed contents of the entry, being a view of either the mapping
+     *   or a pooled buffer. The view is reused; it is valid until the next call of this
+     *   method.
+     */
+    ByteBuffer contents(
+            final Entry entry
+    ) throws IOException {
+        if ((entry.flags & FLAG_ENCRYPTED) != 0) {
+            throw new ZipException("Encrypted entry " + name(entry));
+        }
+        if (entry.localHeaderOffset + LOCAL_FILE_HEADER_SIZE > centralDirectoryOffset ||
+                mapping.getInt((int) entry.localHeaderOffset) != LOCAL_FILE_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header of entry " + name(entry));
+        }
+        final int local = (int) entry.localHeaderOffset;
+        final long dataOffset = local + LOCAL_FILE_HEADER_SIZE + u2(mapping, local + 26) + u2(mapping, local + 28);
+        if (dataOffset + entry.compressedSize > centralDirectoryOffset) {
+            throw new ZipException("Truncated entry " + name(entry));
+        }
+
+        switch (entry.method) {
+            case METHOD_STORED:
+                if (entry.compressedSize != entry.uncompressedSize) {
+                    throw new ZipException("Invalid size of stored entry " + name(entry));
+                }
+                return mappingView((int) dataOffset, (int) entry.uncompressedSize);
+            case METHOD_DEFLATED:
+                return inflate(entry, (int) dataOffset);
+            default:
+                throw new ZipException("Unsupported compression method " + entry.method + " of entry " + name(entry));
+        }
+    }
+
+    private ByteBuffer mappingView(
+            final int offset,
+            final int length
+    ) {
+        // Cast to Buffer for Java 8 compatibility of the class file
+        ((Buffer) mappingView).clear();
+        ((Buffer) mappingView).limit(offset + length);
+        ((Buffer) mappingView).position(offset);
+        return mappingView;
+    }
+
+    private ByteBuffer inflate(
+            final Entry entry,
+            final int dataOffset
+    ) throws IOException {
+        // Inflater only accepts arrays as input before Java 11
+        if (entry.uncompressedSize > MAXIMUM_ARRAY_LENGTH) {
+            throw new ZipException("Entry too large: " + name(entry));
+        }
+        final int compressedSize = (int) entry.compressedSize;
+        final int uncompressedSize = (int) entry.uncompressedSize;
+        final byte[] compressed = buffers.input(compressedSize);
+        mappingView(dataOffset, compressedSize).get(compressed, 0, compressedSize);
+
+        final byte[] inflated = buffers.output(uncompressedSize);
+        final Inflater inflater = buffers.inflater();
+        inflater.setInput(compressed, 0, compressedSize);
+        try {
+            int length = 0;
+            while (length < uncompressedSize) {
+                final int n = inflater.inflate(inflated, length, uncompressedSize - length);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != uncompressedSize) {
+                throw new ZipException("Unexpected size of inflated entry " + name(entry));
+            }
+        } catch (final DataFormatException e) {
+            throw new ZipException("Invalid deflated entry " + name(entry) + ": " + e.getMessage());
+        }
+        return buffers.outputView(uncompressedSize);
+    }
+
+    @Override
+    public void close() {
+        // The mapping is released once it is garbage collected
+        buffers.close();
+    }
+
+}
@@ -14,21 +14,33 @@
 
 package vivid.polypara.maven;
 
-import io.vavr.collection.HashMap;
+import io.vavr.Tuple2;
 import io.vavr.collection.List;
-import io.vavr.collection.Map;
 import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
-import org.objectweb.asm.ClassReader;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.version.Version;
+import vivid.polypara.annotation.Constant;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Resolve Maven artifacts by version.
+ * Resolve Maven artifacts by version, and version ranges to versions.
  */
 class MavenArtifactResolution {
 
@@ -36,94 +48,295 @@ class MavenArtifactResolution {
         // Hide the public constructor
     }
 
-    static Either<Message, Map<String, List<ClassReader>>> mapVersionsToClassReaders(
-            final Mojo mojo,
-            final List<String> resolvableVersions
+    /**
+     * Configuration property of the resolver's basic repository connector, limiting the
+     * number of concurrent downloads of a batch of artifacts.
+     */
+    private static final String CONNECTOR_THREADS_CONFIGURATION_PROPERTY = "aether.connector.basic.threads";
+
+    /**
+     * Prefix of the session data keys under which resolved version ranges are kept for
+     * the remainder of the build.
+     */
+    private static final String VERSION_RANGE_SESSION_DATA_KEY_PREFIX = "vivid.polypara.version-range:";
+
+    /**
+     * Scans the current project's build output. Its classes change from build to build, so
+     * they are neither cached nor retained.
+     */
+    static Either<Message, List<Tuple2<String, Object>>> constantFieldsOfCurrentVersion(
+            final Mojo mojo
     ) {
-        final Either<Message, List<ClassReader>> currentVersionClassReaders =
+        return scan(
+                mojo,
+                Option.none(),
                 AsmClassReaders.fromFile(
                         mojo,
                         new File( mojo.getMavenProject().getBuild().getOutputDirectory() )
-                );
-        final Either<Message, Map<String, List<ClassReader>>> mapping =
-                currentVersionClassReaders.map(val ->
-                        HashMap.of(
-                                mojo.getMavenProject().getVersion(),
-                                val
-                        )
-                );
+                )
+        );
+    }
 
-        return
-                resolvableVersions.foldLeft(
-                        mapping,
-                        (m, version) -> {
-                            if (m.isLeft()) {
-                                return m;
-                            }
-                            final Either<Message, List<ClassReader>> ret = classReaderForResolvableVersion(
-                                    mojo,
-                                    mojo.getMavenProject().getGroupId(),
-                                    mojo.getMavenProject().getArtifactId(),
-                                    version
-                            );
-                            if (ret.isLeft()) {
-                                return Either.left(ret.getLeft());
-                            }
-
-                            return Either.right(
-                                    m.get().put(
-                                            version,
-                                            ret.get()
-                                    )
-                            );
-                        }
-                );
+    /**
+     * Scan each of the Java class files, looking for fields annotated with
+     * our Constant annotation.
+     */
+    private static Either<Message, List<Tuple2<String, Object>>> scan(
+            final Mojo mojo,
+            final Option<ScannedClassFiles<Tuple2<String, Object>>> scannedClassFiles,
+            final ClassReaderSource classReaders
+    ) {
+        return AsmScanner.scan(
+                () -> new AsmFieldAnnotationScanner(mojo, Constant.class),
+                classReaders,
+                mojo.getScanExecution(),
+                scannedClassFiles
+        );
     }
 
-    private static Either<Message, List<ClassReader>> classReaderForResolvableVersion(
+    /**
+     * Reads the constants index held in the artifact's Jar file, if any. Otherwise
+     * consults the constant table cache before scanning the artifact's Jar file.
+     *
+     * Class files identical to those of a version already scanned are not scanned again,
+     * see {@code ScannedClassFiles}.
+     */
+    static Either<Message, List<Tuple2<String, Object>>> constantFieldsOfArtifact(
             final Mojo mojo,
-            final String groupId,
-            final String artifactId,
-            final String version
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles,
+            final Artifact artifact
     ) {
-        return
-                resolveArtifact(mojo, groupId, artifactId, version)
-                        .flatMap(ar -> AsmClassReaders.fromJarFile(mojo, ar.getArtifact().getFile()));
+        final File file = artifact.getFile();
+        final Either<Message, Option<List<Tuple2<String, Object>>>> indexed =
+                ConstantsIndex.readFromJarFile(mojo, file);
+        if (indexed.isLeft()) {
+            return Either.left(indexed.getLeft());
+        }
+        if (indexed.get().isDefined()) {
+            return Either.right(indexed.get().get());
+        }
+
+        final Option<ConstantTableCache> cache = mojo.getConstantTableCache();
+        if (cache.isEmpty()) {
+            return scan(mojo, Option.some(scannedClassFiles), AsmClassReaders.fromJarFile(mojo, file));
+        }
+
+        final String gav = artifact.toString();
+        final String key;
+        try {
+            key = ConstantTableCache.keyOf(artifact);
+        } catch (final IOException e) {
+            return Either.left(
+                    VPE4ClassReadFailure.message(
+                            file.getAbsolutePath(),
+                            e
+                    )
+            );
+        }
+
+        final Option<List<Tuple2<String, Object>>> cached = cache.get().get(gav, key);
+        if (cached.isDefined()) {
+            return Either.right(cached.get());
+        }
+        return scan(mojo, Option.some(scannedClassFiles), AsmClassReaders.fromJarFile(mojo, file))
+                .peek(fields -> cache.get().put(gav, key, fields));
     }
 
-    private static Either<Message, ArtifactResult> resolveArtifact(
+    /**
+     * Released versions already in the local repository are taken from there directly.
+     * The other versions are resolved in a single request, letting the repository
+     * connector download up to {@code resolutionThreads} artifacts concurrently. Those
+     * whose file in the local repository doesn't match its checksum are downloaded again
+     * in a request of their own. The time each artifact takes to resolve is logged.
+     *
+     * @return the result of resolving each of the versions, in the order given
+     */
+    static List<ArtifactResult> resolveArtifacts(
             final Mojo mojo,
-            final String groupId,
-            final String artifactId,
-            final String version
+            final List<String> versions
     ) {
-        final String gav = Static.mavenGAVOf(
-                groupId,
-                artifactId,
-                version
+        if (versions.isEmpty()) {
+            return List.empty();
+        }
+
+        final List<ArtifactRequest> requests = versions.map(version -> new ArtifactRequest(
+                new DefaultArtifact(
+                        Static.mavenGAVOf(
+                                mojo.getMavenProject().getGroupId(),
+                                mojo.getMavenProject().getArtifactId(),
+                                version
+                        )
+                ),
+                mojo.getRemoteRepositories(),
+                null
+        ));
+
+        final Set<ArtifactRequest> mismatched = new HashSet<>();
+        final List<Option<ArtifactResult>> local =
+                requests.map(request -> fromLocalRepository(mojo, request, mismatched));
+        final List<ArtifactRequest> remaining = requests
+                .zip(local)
+                .filter(r -> r._2.isEmpty())
+                .map(Tuple2::_1);
+        final Map<ArtifactRequest, ArtifactResult> resolved = new IdentityHashMap<>();
+        resolve(mojo, remaining.filter(r -> !mismatched.contains(r)), false)
+                .appendAll(resolve(mojo, remaining.filter(mismatched::contains), true))
+                .forEach(result -> resolved.put(result.getRequest(), result));
+        return requests
+                .zip(local)
+                .map(r -> r._2.getOrElse(() -> resolved.get(r._1)));
+    }
+
+    /**
+     * Released versions never change, so a released version found in the local repository
+     * is used as is, once checked against its checksum file, see
+     * {@code ArtifactChecksums.verified}. This skips the resolver, which might otherwise
+     * check remote repositories for updated metadata. A file not matching its checksum is
+     * left in place, other builds perhaps using the local repository too, and its request
+     * added to {@code mismatched} for the resolver to download the file again.
+     */
+    private static Option<ArtifactResult> fromLocalRepository(
+            final Mojo mojo,
+            final ArtifactRequest request,
+            final Set<ArtifactRequest> mismatched
+    ) {
+        final RepositorySystemSession session = mojo.getRepositorySystemSession();
+        final Artifact artifact = request.getArtifact();
+        if (artifact.isSnapshot() || session.getLocalRepositoryManager() == null) {
+            return Option.none();
+        }
+        final File file = new File(
+                session.getLocalRepository().getBasedir(),
+                session.getLocalRepositoryManager().getPathForLocalArtifact(artifact)
         );
+        if (!file.isFile()) {
+            return Option.none();
+        }
 
-        final Artifact artifact = new DefaultArtifact(gav);
+        final String gav = ArtifactResolutionTiming.gavOf(artifact);
+        final Option<Artifact> verified;
+        try {
+            verified = ArtifactChecksums.verified(artifact.setFile(file));
+        } catch (final IOException e) {
+            mojo.getLog().debug("Could not verify " + gav + " in the local repository", e);
+            return Option.none();
+        }
+        if (verified.isEmpty()) {
+            mojo.getLog().warn("Resolving " + gav + " again, its file in the local repository not matching its checksum");
+            mismatched.add(request);
+            return Option.none();
+        }
 
-        ArtifactRequest artifactRequest = new ArtifactRequest();
-        artifactRequest.setArtifact(artifact);
-        artifactRequest.setRepositories(mojo.getRemoteRepositories());
+        mojo.getLog().debug("Found " + gav + " in the local repository");
+        final ArtifactResult result = new ArtifactResult(request);
+        result.setArtifact(verified.get());
+        result.setRepository(session.getLocalRepository());
+        return Option.of(result);
+    }
 
+    /**
+     * @param redownload whether to download the artifacts again, rather than let the
+     *                   resolver take the files already in the local repository as they
+     *                   are. The downloads are then checked against their checksums.
+     */
+    private static List<ArtifactResult> resolve(
+            final Mojo mojo,
+            final List<ArtifactRequest> requests,
+            final boolean redownload
+    ) {
+        if (requests.isEmpty()) {
+            return List.empty();
+        }
+
+        final ArtifactResolutionTiming timing = new ArtifactResolutionTiming();
+        final DefaultRepositorySystemSession session =
+                new DefaultRepositorySystemSession(mojo.getRepositorySystemSession());
+        session.setConfigProperty(CONNECTOR_THREADS_CONFIGURATION_PROPERTY, mojo.getResolutionThreads());
+        session.setRepositoryListener(timing.listener(session.getRepositoryListener()));
+        if (redownload) {
+            session.setLocalRepositoryManager(
+                    new RedownloadingLocalRepositoryManager(session.getLocalRepositoryManager()));
+            session.setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_ALWAYS);
+            session.setChecksumPolicy(RepositoryPolicy.CHECKSUM_POLICY_FAIL);
+        }
+
+        List<ArtifactResult> results;
         try {
-            return Either.right(
-                    mojo.getRepositorySystem().resolveArtifact(
-                            mojo.getRepositorySystemSession(),
-                            artifactRequest
-                    )
-            );
+            results = List.ofAll(mojo.getRepositorySystem().resolveArtifacts(session, requests.asJava()));
         } catch (final ArtifactResolutionException e) {
-            return Either.left(
-                    VPE3ArtifactResolutionFailure.message(
-                            gav,
-                            e
-                    )
+            results = List.ofAll(e.getResults());
+        }
+
+        if (mojo.getLog().isDebugEnabled()) {
+            for (final ArtifactResult result : results) {
+                final String gav = ArtifactResolutionTiming.gavOf(result.getRequest().getArtifact());
+                mojo.getLog().debug(
+                        (result.isResolved() ? "Resolved " : "Could not resolve ") + gav +
+                                timing.elapsedMillis(gav).map(ms -> " in " + ms + " ms").getOrElse("")
+                );
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Resolves the versions of the current project's artifact within the version range
+     * from the repositories' metadata. The result is kept in the repository session's data,
+     * so each version range is resolved only once per build, however many modules or
+     * executions ask for it.
+     *
+     * @return the versions within the range, in ascending order
+     */
+    static Either<Message, List<String>> resolveVersionRange(
+            final Mojo mojo,
+            final String versionRange
+    ) {
+        final Artifact artifact = new DefaultArtifact(
+                Static.mavenGAVOf(
+                        mojo.getMavenProject().getGroupId(),
+                        mojo.getMavenProject().getArtifactId(),
+                        versionRange
+                )
+        );
+        final RepositorySystemSession session = mojo.getRepositorySystemSession();
+        final String key = VERSION_RANGE_SESSION_DATA_KEY_PREFIX + artifact;
+
+        @SuppressWarnings("unchecked")
+        final List<String> cached = (List<String>) session.getData().get(key);
+        if (cached != null) {
+            mojo.getLog().debug("Version range " + artifact + " was resolved earlier in the build");
+            return Either.right(cached);
+        }
+
+        final VersionRangeResult result;
+        try {
+            result = mojo.getRepositorySystem().resolveVersionRange(
+                    session,
+                    new VersionRangeRequest(artifact, mojo.getRemoteRepositories(), null)
             );
+        } catch (final VersionRangeResolutionException e) {
+            return Either.left(VPE5VersionRangeResolutionFailure.message(versionRange, e));
         }
+        result.getExceptions().forEach(e -> mojo.getLog().debug("While resolving version range " + artifact, e));
+
+        final List<String> versions = List.ofAll(result.getVersions()).map(Version::toString);
+        session.getData().set(key, versions);
+        mojo.getLog().debug(
+                "Resolved version range " + artifact + " to:  " + Static.humanReadableVersionList(versions)
+        );
+        return Either.right(versions);
+    }
+
+    /**
+     * @return a message naming every one of the artifacts that couldn't be resolved
+     */
+    static Message unresolvable(
+            final List<ArtifactResult> unresolved
+    ) {
+        return VPE3ArtifactResolutionFailure.message(
+                unresolved.map(result -> ArtifactResolutionTiming.gavOf(result.getRequest().getArtifact())),
+                new ArtifactResolutionException(unresolved.asJava())
+        );
     }
 
 }
@@ -14,6 +14,7 @@
 
 package vivid.polypara.maven;
 
+import io.vavr.control.Option;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.aether.RepositorySystem;
@@ -27,11 +28,15 @@ import java.util.List;
  */
 interface Mojo {
 
+    Option<ConstantTableCache> getConstantTableCache();
     I18nContext getI18nContext();
     Log getLog();
     MavenProject getMavenProject();
     VerifyConstantsMojo.ReportingLevel getReportingLevel();
     List<RemoteRepository> getRemoteRepositories();
+    int getResolutionThreads();
+    ScanExecution getScanExecution();
+    SymbolTable getSymbolTable();
     RepositorySystem getRepositorySystem();
     RepositorySystemSession getRepositorySystemSession();
 
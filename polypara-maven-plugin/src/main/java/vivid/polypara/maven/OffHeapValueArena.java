@@ -0,0 +1,321 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Dictionary encoding of field values into dense {@code int} codes, like
+ * {@code ValueDictionary}, holding the values outside the Java heap.
+ *
+ * Each distinct value is serialized once into a direct {@code ByteBuffer} arena as a tag
+ * byte followed by its raw bits, or by the UTF-16 code units of a string, and is found
+ * again through an open-addressing hash table kept in another direct buffer. Values are
+ * only ever turned back into Java objects by {@link #decode}. Values of types that can't
+ * appear in a class file's {@code ConstantValue} attribute are held in an on-heap
+ * {@code ValueDictionary} instead.
+ */
+class OffHeapValueArena {
+
+    private static final byte TAG_INT = 'I';
+    private static final byte TAG_LONG = 'J';
+    private static final byte TAG_FLOAT = 'F';
+    private static final byte TAG_DOUBLE = 'D';
+    private static final byte TAG_STRING = 'S';
+    private static final byte TAG_DIGEST = 'H';
+
+    private static final int NO_SLOT = -1;
+
+    private final boolean digestLongStrings;
+
+    /**
+     * Serialized values, back to back.
+     */
+    private ByteBuffer bytes = ByteBuffer.allocateDirect(4_096);
+
+    /**
+     * Offset of each value within {@code bytes}, indexed by value index, followed by the
+     * offset at which the next value will be written.
+     */
+    private IntBuffer offsets = newInts(64);
+
+    /**
+     * Hash table slots hold a value index, or {@code NO_SLOT}.
+     */
+    private IntBuffer slots = newSlots(64);
+
+    private int size = 0;
+
+    /**
+     * Serialization of the value being encoded.
+     */
+    private byte[] scratch = new byte[64];
+
+    private final ValueDictionary others = new ValueDictionary();
+
+    /**
+     * @param digestLongStrings hold long strings as their digests only, see
+     *                          {@code ValueDictionary}
+     */
+    OffHeapValueArena(
+            final boolean digestLongStrings
+    ) {
+        this.digestLongStrings = digestLongStrings;
+    }
+
+    static IntBuffer newInts(
+            final int capacity
+    ) {
+        return ByteBuffer.allocateDirect(4 * capacity).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static IntBuffer newSlots(
+            final int capacity
+    ) {
+        final IntBuffer s = newInts(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            s.put(slot, NO_SLOT);
+        }
+        return s;
+    }
+
+    /**
+     * @return a buffer of at least the given capacity holding the contents of the given buffer
+     */
+    static IntBuffer grow(
+            final IntBuffer ints,
+            final int minimumCapacity
+    ) {
+        final IntBuffer grown = newInts(Math.max(minimumCapacity, 2 * ints.capacity()));
+        ((Buffer) ints).clear();
+        grown.put(ints);
+        return grown;
+    }
+
+    private static int hash(
+            final byte[] serialized,
+            final int length
+    ) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ serialized[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void ensureScratch(
+            final int length
+    ) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+    }
+
+    private int serializeBits(
+            final byte tag,
+            final long bits,
+            final int byteCount
+    ) {
+        ensureScratch(1 + byteCount);
+        scratch[0] = tag;
+        for (int i = 0; i < byteCount; i++) {
+            scratch[1 + i] = (byte) (bits >>> (8 * i));
+        }
+        return 1 + byteCount;
+    }
+
+    private int serializeString(
+            final String value
+    ) {
+        ensureScratch(1 + 2 * value.length());
+        scratch[0] = TAG_STRING;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            scratch[1 + 2 * i] = (byte) c;
+            scratch[2 + 2 * i] = (byte) (c >>> 8);
+        }
+        return 1 + 2 * value.length();
+    }
+
+    /**
+     * @return the length of the value's serialization in {@code scratch}, or -1 if the
+     *   value is of a type held on the heap
+     */
+    private int serialize(
+            final Object value
+    ) {
+        if (value instanceof Integer) {
+            return serializeBits(TAG_INT, (Integer) value, 4);
+        } else if (value instanceof Long) {
+            return serializeBits(TAG_LONG, (Long) value, 8);
+        } else if (value instanceof Float) {
+            return serializeBits(TAG_FLOAT, Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            return serializeBits(TAG_DOUBLE, Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof String) {
+            final String string = (String) value;
+            return digestLongStrings && string.length() >= ValueDictionary.DIGESTED_STRING_MINIMUM_LENGTH
+                    ? serializeBits(TAG_DIGEST, ValueDictionary.Digest.of(string).bits, 8)
+                    : serializeString(string);
+        }
+        return -1;
+    }
+
+    private boolean isSerializedAt(
+            final int index,
+            final int length
+    ) {
+        final int offset = offsets.get(index);
+        if (offsets.get(index + 1) - offset != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes.get(offset + i) != scratch[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the code of the given value, registering the value if it hasn't been seen
+     *   before. Codes of values held in the arena are positive.
+     */
+    int encode(
+            final Object value
+    ) {
+        if (value == null) {
+            return ValueDictionary.ABSENT;
+        }
+        final int length = serialize(value);
+        if (length < 0) {
+            return -others.encode(value);
+        }
+
+        final int h = hash(scratch, length);
+        int slot = h & (slots.capacity() - 1);
+        while (slots.get(slot) != NO_SLOT) {
+            if (isSerializedAt(slots.get(slot), length)) {
+                return slots.get(slot) + 1;
+            }
+            slot = (slot + 1) & (slots.capacity() - 1);
+        }
+
+        final int offset = offsets.get(size);
+        if (offset + length > bytes.capacity()) {
+            final ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(offset + length, 2 * bytes.capacity()));
+            ((Buffer) bytes).clear();
+            ((Buffer) bytes).limit(offset);
+            grown.put(bytes);
+            bytes = grown;
+        }
+        for (int i = 0; i < length; i++) {
+            bytes.put(offset + i, scratch[i]);
+        }
+        if (size + 2 > offsets.capacity()) {
+            offsets = grow(offsets, size + 2);
+        }
+        offsets.put(size, offset);
+        offsets.put(size + 1, offset + length);
+        slots.put(slot, size);
+        size++;
+        if (size * 2 > slots.capacity()) {
+            rehash();
+        }
+        return size;
+    }
+
+    private void rehash() {
+        slots = newSlots(2 * slots.capacity());
+        for (int index = 0; index < size; index++) {
+            final int offset = offsets.get(index);
+            final int length = offsets.get(index + 1) - offset;
+            ensureScratch(length);
+            for (int i = 0; i < length; i++) {
+                scratch[i] = bytes.get(offset + i);
+            }
+            int slot = hash(scratch, length) & (slots.capacity() - 1);
+            while (slots.get(slot) != NO_SLOT) {
+                slot = (slot + 1) & (slots.capacity() - 1);
+            }
+            slots.put(slot, index);
+        }
+    }
+
+    private long bitsAt(
+            final int offset,
+            final int byteCount
+    ) {
+        long bits = 0;
+        for (int i = 0; i < byteCount; i++) {
+            bits |= (bytes.get(offset + i) & 0xFFL) << (8 * i);
+        }
+        return bits;
+    }
+
+    /**
+     * @return the value of the given code, or {@code null} for {@code ValueDictionary.ABSENT}.
+     *   A digested string decodes to its {@code ValueDictionary.Digest}.
+     */
+    Object decode(
+            final int code
+    ) {
+        if (code == ValueDictionary.ABSENT) {
+            return null;
+        } else if (code < 0) {
+            return others.decode(-code);
+        }
+        final int offset = offsets.get(code - 1);
+        final int end = offsets.get(code);
+        switch (bytes.get(offset)) {
+            case TAG_INT:
+                return (int) bitsAt(offset + 1, 4);
+            case TAG_LONG:
+                return bitsAt(offset + 1, 8);
+            case TAG_FLOAT:
+                return Float.intBitsToFloat((int) bitsAt(offset + 1, 4));
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(bitsAt(offset + 1, 8));
+            case TAG_DIGEST:
+                return new ValueDictionary.Digest(bitsAt(offset + 1, 8));
+            case TAG_STRING:
+                final char[] chars = new char[(end - offset - 1) / 2];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) bitsAt(offset + 1 + 2 * i, 2);
+                }
+                return new String(chars);
+            default:
+                throw new IllegalArgumentException("Not a value arena code: " + code);
+        }
+    }
+
+    /**
+     * @return the number of distinct values held
+     */
+    int size() {
+        return size + others.size();
+    }
+
+    /**
+     * @return the number of bytes held outside the Java heap
+     */
+    long offHeapBytes() {
+        return bytes.capacity() + 4L * offsets.capacity() + 4L * slots.capacity();
+    }
+
+}
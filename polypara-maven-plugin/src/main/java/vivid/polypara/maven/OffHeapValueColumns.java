@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Value columns held outside the Java heap as direct {@code IntBuffer}s, the values being
+ * held in an {@code OffHeapValueArena}, for very large numbers of fields and versions.
+ * Only the values of the fields that violate constancy are ever materialized as Java
+ * objects.
+ */
+class OffHeapValueColumns
+        implements ValueColumns
+{
+
+    private static final int INITIAL_COLUMN_CAPACITY = 256;
+
+    private final Mojo mojo;
+
+    private OffHeapValueArena arena;
+
+    /**
+     * Indexed first by version ordinal and then by field ID. Columns are allocated and
+     * grow on demand; field IDs beyond the end of a column are absent from that version.
+     */
+    private IntBuffer[] columns;
+
+    /**
+     * @param digestLongStrings hold long strings as their digests only, see
+     *                          {@code ValueDictionary}
+     */
+    OffHeapValueColumns(
+            final Mojo mojo,
+            final int versionCount,
+            final boolean digestLongStrings
+    ) {
+        this.mojo = mojo;
+        this.arena = new OffHeapValueArena(digestLongStrings);
+        this.columns = new IntBuffer[versionCount];
+    }
+
+    @Override
+    public int code(
+            final int ordinal,
+            final int fieldID
+    ) {
+        final IntBuffer column = columns[ordinal];
+        return column != null && fieldID < column.capacity() ? column.get(fieldID) : ValueDictionary.ABSENT;
+    }
+
+    @Override
+    public void put(
+            final int ordinal,
+            final int fieldID,
+            final Object value
+    ) {
+        if (columns[ordinal] == null) {
+            columns[ordinal] = OffHeapValueArena.newInts(Math.max(fieldID + 1, INITIAL_COLUMN_CAPACITY));
+        } else if (fieldID >= columns[ordinal].capacity()) {
+            columns[ordinal] = OffHeapValueArena.grow(columns[ordinal], fieldID + 1);
+        }
+        columns[ordinal].put(fieldID, arena.encode(value));
+    }
+
+    @Override
+    public Object decode(
+            final int code
+    ) {
+        return arena.decode(code);
+    }
+
+    /**
+     * Drops the direct buffers, which are released once collected.
+     */
+    @Override
+    public void close() {
+        mojo.getLog().debug(String.format(
+                "The off-heap value columns held %d distinct values in %d bytes",
+                arena.size(),
+                arena.offHeapBytes() + 4L * Arrays.stream(columns)
+                        .mapToLong(c -> c == null ? 0 : c.capacity())
+                        .sum()
+        ));
+        arena = null;
+        columns = null;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded queue between two stages of a pipeline. A full queue blocks the producing stage,
+ * so that a fast stage can't run ahead of a slow one. The queue records its peak depth and
+ * how long either stage waited on the other, for the debug log. Waiting stops once the
+ * pipeline is cancelled, so that no stage is left blocked on a stage that has failed.
+ *
+ * Thread-safe.
+ *
+ * @param <T> type of the items passed from stage to stage
+ */
+class PipelineQueue<T> {
+
+    /**
+     * How often a stage waiting on another checks whether the pipeline was cancelled.
+     */
+    static final long CANCELLATION_POLL_MILLIS = 100;
+
+    private final String name;
+    private final int capacity;
+    private final ArrayBlockingQueue<T> queue;
+
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final AtomicLong producersBlockedNanos = new AtomicLong();
+    private final AtomicLong consumersIdleNanos = new AtomicLong();
+
+    PipelineQueue(
+            final String name,
+            final int capacity
+    ) {
+        this.name = name;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Waits for room in the queue, giving up once the pipeline is cancelled.
+     *
+     * @return whether the item was queued
+     */
+    boolean put(
+            final T item,
+            final BooleanSupplier cancelled
+    ) throws InterruptedException {
+        if (queue.offer(item)) {
+            peakDepth.accumulateAndGet(queue.size(), Math::max);
+            return true;
+        }
+        final long start = System.nanoTime();
+        try {
+            while (!cancelled.getAsBoolean()) {
+                if (queue.offer(item, CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    peakDepth.accumulateAndGet(queue.size(), Math::max);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            producersBlockedNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Waits for an item, giving up once the pipeline is cancelled.
+     *
+     * @return the item, or null if the pipeline was cancelled
+     */
+    T take(
+            final BooleanSupplier cancelled
+    ) throws InterruptedException {
+        final T item = queue.poll();
+        if (item != null) {
+            return item;
+        }
+        final long start = System.nanoTime();
+        try {
+            while (!cancelled.getAsBoolean()) {
+                final T polled = queue.poll(CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (polled != null) {
+                    return polled;
+                }
+            }
+            return null;
+        } finally {
+            consumersIdleNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Discards the items in the queue, making room for stages still putting items.
+     */
+    void drain() {
+        queue.clear();
+    }
+
+    int peakDepth() {
+        return peakDepth.get();
+    }
+
+    long producersBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(producersBlockedNanos.get());
+    }
+
+    long consumersIdleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(consumersIdleNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s queue: peak depth %d of %d, producers blocked %d ms, consumers idle %d ms",
+                name,
+                peakDepth(),
+                capacity,
+                producersBlockedMillis(),
+                consumersIdleMillis()
+        );
+    }
+
+}
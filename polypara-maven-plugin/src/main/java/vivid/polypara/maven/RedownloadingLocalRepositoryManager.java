@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.LocalMetadataRegistration;
+import org.eclipse.aether.repository.LocalMetadataRequest;
+import org.eclipse.aether.repository.LocalMetadataResult;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * Local repository manager reporting that no artifact is in the local repository, so that
+ * the resolver downloads the artifacts again rather than taking the files already there
+ * as they are. Everything else is left to the given local repository manager, including
+ * where downloaded files are placed.
+ */
+class RedownloadingLocalRepositoryManager implements LocalRepositoryManager {
+
+    private final LocalRepositoryManager delegate;
+
+    RedownloadingLocalRepositoryManager(
+            final LocalRepositoryManager delegate
+    ) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public LocalRepository getRepository() {
+        return delegate.getRepository();
+    }
+
+    @Override
+    public String getPathForLocalArtifact(
+            final Artifact artifact
+    ) {
+        return delegate.getPathForLocalArtifact(artifact);
+    }
+
+    @Override
+    public String getPathForRemoteArtifact(
+            final Artifact artifact,
+            final RemoteRepository repository,
+            final String context
+    ) {
+        return delegate.getPathForRemoteArtifact(artifact, repository, context);
+    }
+
+    @Override
+    public String getPathForLocalMetadata(
+            final Metadata metadata
+    ) {
+        return delegate.getPathForLocalMetadata(metadata);
+    }
+
+    @Override
+    public String getPathForRemoteMetadata(
+            final Metadata metadata,
+            final RemoteRepository repository,
+            final String context
+    ) {
+        return delegate.getPathForRemoteMetadata(metadata, repository, context);
+    }
+
+    @Override
+    public LocalArtifactResult find(
+            final RepositorySystemSession session,
+            final LocalArtifactRequest request
+    ) {
+        return new LocalArtifactResult(request);
+    }
+
+    @Override
+    public void add(
+            final RepositorySystemSession session,
+            final LocalArtifactRegistration request
+    ) {
+        delegate.add(session, request);
+    }
+
+    @Override
+    public LocalMetadataResult find(
+            final RepositorySystemSession session,
+            final LocalMetadataRequest request
+    ) {
+        return delegate.find(session, request);
+    }
+
+    @Override
+    public void add(
+            final RepositorySystemSession session,
+            final LocalMetadataRegistration request
+    ) {
+        delegate.add(session, request);
+    }
+
+}
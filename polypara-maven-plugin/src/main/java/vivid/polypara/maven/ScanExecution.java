@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker threads of the scanning stages.
+ *
+ * Versions are resolved and read on threads suited to blocking I/O, being virtual threads
+ * when the JDK provides them; see {@code VerificationPipeline}. Otherwise, the pool holds a
+ * thread for each of the {@code parallelism} versions in flight plus one resolving them.
+ * The CPU-bound parsing of classes is fanned out to a fixed pool of {@code parallelism}
+ * platform threads. With a parallelism of 1, everything runs on the calling thread.
+ *
+ * Buffers for reading class files are pooled for as long as the execution is open, one for
+ * each of the versions in flight; see {@code ClassFileBuffers}.
+ */
+class ScanExecution
+        implements Closeable
+{
+
+    private final int parallelism;
+    private final Option<ExecutorService> versionExecutor;
+    private final Option<ExecutorService> classExecutor;
+    private final ArrayBlockingQueue<ClassFileBuffers> classFileBuffers;
+
+    private ScanExecution(
+            final int parallelism
+    ) {
+        this.parallelism = parallelism;
+        this.classFileBuffers = new ArrayBlockingQueue<>(parallelism);
+        if (parallelism > 1) {
+            this.versionExecutor = Option.of(newBlockingIOExecutor(parallelism + 1));
+            this.classExecutor = Option.of(Executors.newFixedThreadPool(
+                    parallelism,
+                    daemonThreadFactory("polypara-scan")
+            ));
+        } else {
+            this.versionExecutor = Option.none();
+            this.classExecutor = Option.none();
+        }
+    }
+
+    static ScanExecution sequential() {
+        return new ScanExecution(1);
+    }
+
+    /**
+     * @param threads number of worker threads, or {@code 0} or fewer for one per available core
+     */
+    static ScanExecution withThreads(
+            final int threads
+    ) {
+        return new ScanExecution(
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors()
+        );
+    }
+
+    int parallelism() {
+        return parallelism;
+    }
+
+    Option<ExecutorService> classExecutor() {
+        return classExecutor;
+    }
+
+    Option<ExecutorService> versionExecutor() {
+        return versionExecutor;
+    }
+
+    /**
+     * @return buffers for reading class files, returned to this execution's pool when closed
+     */
+    ClassFileBuffers classFileBuffers() {
+        return ClassFileBuffers.acquire(classFileBuffers);
+    }
+
+    /**
+     * Waits for the task to complete, re-throwing unchecked exceptions that the task threw.
+     */
+    static <T> T await(
+            final Future<T> future
+    ) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        versionExecutor.forEach(ExecutorService::shutdownNow);
+        classExecutor.forEach(ExecutorService::shutdownNow);
+        ClassFileBuffers.release(classFileBuffers);
+    }
+
+    private static ExecutorService newBlockingIOExecutor(
+            final int threads
+    ) {
+        try {
+            // JDK 21+
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(
+                    threads,
+                    daemonThreadFactory("polypara-io")
+            );
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(
+            final String namePrefix
+    ) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
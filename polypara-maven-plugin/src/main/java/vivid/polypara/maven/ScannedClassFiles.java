@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple3;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The results of scanning class files, retained for the duration of a build by the
+ * identity of each class file: its name, CRC-32 and size, as recorded in the central
+ * directory of its Jar file. Most class files are identical between consecutive versions;
+ * those seen before are thus neither read nor parsed again, so that scanning time grows
+ * with the amount of change between versions rather than with the number of versions.
+ *
+ * Class files that weren't parsed, being no candidates, are retained with no results.
+ * Thread-safe.
+ *
+ * @param <E> type of the results of scanning a class file
+ */
+class ScannedClassFiles<E> {
+
+    private final ConcurrentHashMap<Tuple3<String, Integer, Long>, List<E>> results = new ConcurrentHashMap<>();
+
+    private final AtomicInteger reused = new AtomicInteger();
+
+    Option<List<E>> get(
+            final Tuple3<String, Integer, Long> identity
+    ) {
+        final List<E> found = results.get(identity);
+        if (found == null) {
+            return Option.none();
+        }
+        reused.incrementAndGet();
+        return Option.some(found);
+    }
+
+    void put(
+            final Tuple3<String, Integer, Long> identity,
+            final List<E> scanResults
+    ) {
+        results.put(identity, scanResults);
+    }
+
+    /**
+     * @return the number of times the results of a class file were reused
+     */
+    int reused() {
+        return reused.get();
+    }
+
+    int size() {
+        return results.size();
+    }
+
+}
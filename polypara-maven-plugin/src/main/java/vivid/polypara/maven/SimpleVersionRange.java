@@ -15,18 +15,23 @@
 package vivid.polypara.maven;
 
 import io.vavr.control.Option;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 
 import java.util.Objects;
 
 /**
  * Simplistic encoding of a version range with a {@code start} version and an optional {@code end} version.
+ *
+ * The {@code start} version is parsed once, on construction, rather than on every comparison.
  */
 class SimpleVersionRange implements Comparable<SimpleVersionRange> {
 
     final String start;
     final Option<String> end;
 
+    private final ArtifactVersion startVersion;
+
     SimpleVersionRange(
             final String start,
             final Option<String> end
@@ -35,6 +40,26 @@ class SimpleVersionRange implements Comparable<SimpleVersionRange> {
         Objects.requireNonNull(end, "end is null");
         this.start = start;
         this.end = end;
+        this.startVersion = new DefaultArtifactVersion(start);
+    }
+
+    private SimpleVersionRange(
+            final SimpleVersionRange start,
+            final String end
+    ) {
+        this.start = start.start;
+        this.end = Option.of(end);
+        this.startVersion = start.startVersion;
+    }
+
+    /**
+     * @return the range from this range's start version through the given end version
+     */
+    SimpleVersionRange through(
+            final String end
+    ) {
+        Objects.requireNonNull(end, "end is null");
+        return new SimpleVersionRange(this, end);
     }
 
     @Override
@@ -48,8 +73,7 @@ class SimpleVersionRange implements Comparable<SimpleVersionRange> {
 
     @Override
     public int compareTo(final SimpleVersionRange o) {
-        return new DefaultArtifactVersion(this.start)
-                .compareTo(new DefaultArtifactVersion(o.start));
+        return this.startVersion.compareTo(o.startVersion);
     }
 
     @Override
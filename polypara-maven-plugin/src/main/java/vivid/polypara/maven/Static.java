@@ -33,18 +33,70 @@ class Static {
             "Users prefer their existing Maven POM Polypara configuration to " +
                     "remain compatible as-is with newer versions of this Polypara Maven plugin.";
 
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_BASELINE_FILE_CONFIGURATION_KEY = "baselineFile";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_BASELINE_MOJO_NAME = "baseline";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_BISECT_CONFIGURATION_KEY = "bisect";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_BISECTION_SAMPLING_CONFIGURATION_KEY = "bisectionSampling";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_CACHE_CONFIGURATION_KEY = "cache";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_CACHE_DIRECTORY_CONFIGURATION_KEY = "cacheDirectory";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_CACHE_MAXIMUM_SIZE_CONFIGURATION_KEY = "cacheMaximumSize";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_DATA_STORE_CONFIGURATION_KEY = "dataStore";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_EXTEND_BASELINE_CONFIGURATION_KEY = "extendBaseline";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_FAIL_FAST_CONFIGURATION_KEY = "failFast";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_INDEX_MOJO_NAME = "index";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_MEMORY_BUDGET_CONFIGURATION_KEY = "memoryBudget";
+
     @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String POM_POLYPARA_REPORTING_LEVEL_CONFIGURATION_KEY = "reportingLevel";
 
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_RESOLUTION_THREADS_CONFIGURATION_KEY = "resolutionThreads";
+
     @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String POM_POLYPARA_SKIP_PROPERTY_KEY = "vivid.polypara.skip";
 
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_THREADS_CONFIGURATION_KEY = "threads";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_USE_BASELINE_CONFIGURATION_KEY = "useBaseline";
+
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String POM_POLYPARA_VALUE_STORAGE_CONFIGURATION_KEY = "valueStorage";
+
     @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String POM_POLYPARA_VERIFY_MOJO_NAME = "verify";
 
     @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String POM_POLYPARA_VERSIONS_CONFIGURATION_KEY = "versions";
 
+    @Constant(rationale = "Released Jar files carry their constants index at this location, " +
+            "where all later versions of this Polypara Maven plugin look for it.")
+    static final String POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME = "META-INF/polypara/constants.idx";
+
 
     private Static() {
         // Cannot be instantiated.
@@ -85,11 +137,7 @@ class Static {
     ) {
         Objects.requireNonNull(clazzName, "clazzName is null");
         Objects.requireNonNull(fieldName, "fieldName is null");
-        return String.format(
-                "%s.%s",
-                clazzName,
-                fieldName
-        );
+        return clazzName + '.' + fieldName;
     }
 
     static String humanReadableVersionList(
@@ -162,11 +210,7 @@ class Static {
     ) {
         Objects.requireNonNull(jarFile, "jarFile is null");
         Objects.requireNonNull(entryName, "entryName is null");
-        return String.format(
-                "%s(%s)",
-                jarFile.getAbsolutePath(),
-                entryName
-        );
+        return jarFile.getAbsolutePath() + '(' + entryName + ')';
     }
 
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the names of the classes and fields bearing {@code Constant} fields during one
+ * execution, so that each fully-qualified field name is held as a single {@code String}
+ * instance, however many versions, constants indexes and cache entries mention the field.
+ *
+ * Names already interned are looked up without locking, the concurrent scanners calling
+ * upon the table for each matching field of every class they scan.
+ */
+class SymbolTable {
+
+    /**
+     * A class, holding the fully-qualified names of its fields by their simple names.
+     */
+    static final class ClassSymbol {
+
+        private final String name;
+        private final ConcurrentHashMap<String, String> fields = new ConcurrentHashMap<>();
+
+        private ClassSymbol(
+                final String name
+        ) {
+            this.name = name;
+        }
+
+    }
+
+    /**
+     * Classes, by binary name.
+     */
+    private final ConcurrentHashMap<String, ClassSymbol> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Fully-qualified field names, each mapped to itself.
+     */
+    private final ConcurrentHashMap<String, String> fullyQualifiedNames = new ConcurrentHashMap<>();
+
+    /**
+     * @param clazzName a binary class name such as {@code a.b.C$D}, or an internal name
+     *                  such as {@code a/b/C$D}
+     */
+    ClassSymbol classSymbol(
+            final String clazzName
+    ) {
+        final String binaryName = clazzName.replace('/', '.');
+        final ClassSymbol existing = classes.get(binaryName);
+        if (existing != null) {
+            return existing;
+        }
+        return classes.computeIfAbsent(binaryName, ClassSymbol::new);
+    }
+
+    /**
+     * @return the single instance of the fully-qualified name of the class's field
+     */
+    String fullyQualifiedName(
+            final ClassSymbol clazz,
+            final String fieldName
+    ) {
+        final String existing = clazz.fields.get(fieldName);
+        if (existing != null) {
+            return existing;
+        }
+        return clazz.fields.computeIfAbsent(fieldName, name -> intern(clazz.name + '.' + name));
+    }
+
+    /**
+     * @return the single instance of the fully-qualified field name
+     */
+    String intern(
+            final String fullyQualifiedFieldName
+    ) {
+        if (fullyQualifiedFieldName.indexOf('.') < 0) {
+            return fullyQualifiedFieldName;
+        }
+        final String existing = fullyQualifiedNames.putIfAbsent(fullyQualifiedFieldName, fullyQualifiedFieldName);
+        return existing != null ? existing : fullyQualifiedFieldName;
+    }
+
+    /**
+     * @return the number of distinct fields
+     */
+    int size() {
+        return fullyQualifiedNames.size();
+    }
+
+}
@@ -14,6 +14,7 @@
 
 package vivid.polypara.maven;
 
+import io.vavr.collection.List;
 import io.vavr.control.Option;
 
 /**
@@ -24,23 +25,26 @@ public class VPE3ArtifactResolutionFailure implements Message {
     private static final String I18N_KEY = "vivid.polypara.error.vpe-3-artifact-resolution-failure";
 
     private final Option<Exception> cause;
-    private final String gav;
+    private final List<String> gavs;
 
     private VPE3ArtifactResolutionFailure(
             final Option<Exception> cause,
-            final String gav
+            final List<String> gavs
     ) {
         this.cause = cause;
-        this.gav = gav;
+        this.gavs = gavs;
     }
 
+    /**
+     * @param gavs all of the artifacts that couldn't be resolved
+     */
     static Message message(
-            final String gav,
+            final List<String> gavs,
             final Exception e
     ) {
         return new VPE3ArtifactResolutionFailure(
                 Option.of(e),
-                gav
+                gavs
         );
     }
 
@@ -55,7 +59,7 @@ public class VPE3ArtifactResolutionFailure implements Message {
     ) {
         return mojo.getI18nContext().getText(
                 I18N_KEY,
-                gav
+                Static.humanReadableVersionList(gavs)
         );
     }
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+
+/**
+ * @since 0.5.0
+ */
+class VPE5VersionRangeResolutionFailure implements Message {
+
+    private static final String I18N_KEY = "vivid.polypara.error.vpe-5-version-range-resolution-failure";
+
+    private final Option<Exception> cause;
+    private final String versionRange;
+
+    private VPE5VersionRangeResolutionFailure(
+            final String versionRange,
+            final Option<Exception> cause
+    ) {
+        this.versionRange = versionRange;
+        this.cause = cause;
+    }
+
+    static Message message(
+            final String versionRange,
+            final Exception cause
+    ) {
+        return new VPE5VersionRangeResolutionFailure(versionRange, Option.of(cause));
+    }
+
+    @Override
+    public Option<Exception> getCause() {
+        return cause;
+    }
+
+    public String render(
+            final Mojo mojo
+    ) {
+        return mojo.getI18nContext().getText(
+                I18N_KEY,
+                versionRange
+        );
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+/**
+ * Column storage of {@code ConstantsMemoryImpl}: a column of value codes for each version,
+ * indexed by field ID, and the dictionary of the values that the codes stand for.
+ *
+ * Written by one thread at a time, and then read by any number of threads at once.
+ */
+interface ValueColumns {
+
+    /**
+     * @return the code of the field's value in the version with the given ordinal, being
+     *   {@code ValueDictionary.ABSENT} for fields that the version doesn't hold
+     */
+    int code(
+            int ordinal,
+            int fieldID
+    );
+
+    /**
+     * Records the value of the field in the version with the given ordinal, growing the
+     * version's column as needed.
+     */
+    void put(
+            int ordinal,
+            int fieldID,
+            Object value
+    );
+
+    /**
+     * @return the value of the given code, or {@code null} for {@code ValueDictionary.ABSENT}
+     */
+    Object decode(
+            int code
+    );
+
+    /**
+     * Releases the columns and the values.
+     */
+    void close();
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Dictionary encoding of field values into dense {@code int} codes, such that equal values
+ * receive equal codes.
+ *
+ * The {@code int}, {@code long}, {@code float} and {@code double} values of a class file's
+ * {@code ConstantValue} attribute are held unboxed in primitive-specialized columns; all
+ * other values are held once each in a reference column. The code {@link #ABSENT} is
+ * reserved for a field that is absent from a version, which is also how {@code null}
+ * values are treated.
+ *
+ * Optionally, strings of at least {@code DIGESTED_STRING_MINIMUM_LENGTH} characters are
+ * held as 64-bit content digests only, and decode to a {@link Digest} in place of the
+ * string. The strings themselves are then re-extracted from their versions on demand,
+ * see {@code DigestedValues}.
+ */
+class ValueDictionary {
+
+    static final int ABSENT = 0;
+
+    static final int DIGESTED_STRING_MINIMUM_LENGTH = 64;
+
+    private static final int KIND_SHIFT = 28;
+    private static final int INDEX_MASK = (1 << KIND_SHIFT) - 1;
+
+    private static final int KIND_REFERENCE = 1;
+    private static final int KIND_INT = 2;
+    private static final int KIND_LONG = 3;
+    private static final int KIND_FLOAT = 4;
+    private static final int KIND_DOUBLE = 5;
+    private static final int KIND_DIGEST = 6;
+
+    /**
+     * 64-bit content digest of a string, standing in for the string.
+     */
+    static final class Digest {
+
+        final long bits;
+
+        Digest(
+                final long bits
+        ) {
+            this.bits = bits;
+        }
+
+        static Digest of(
+                final String value
+        ) {
+            // FNV-1a over the UTF-16 code units, seeded with the length and finished with
+            // the MurmurHash3 avalanche
+            long h = 0xCBF29CE484222325L ^ value.length();
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+            h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return new Digest(h ^ (h >>> 33));
+        }
+
+        @Override
+        public boolean equals(
+                final Object o
+        ) {
+            return o instanceof Digest && ((Digest) o).bits == bits;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(bits);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("<string with digest %016x>", bits);
+        }
+
+    }
+
+    private final boolean digestLongStrings;
+
+    private final ArrayList<Object> references = new ArrayList<>();
+    private final HashMap<Object, Integer> referenceCodes = new HashMap<>();
+    private final PrimitiveColumn ints = new PrimitiveColumn();
+    private final PrimitiveColumn longs = new PrimitiveColumn();
+    private final PrimitiveColumn floats = new PrimitiveColumn();
+    private final PrimitiveColumn doubles = new PrimitiveColumn();
+    private final PrimitiveColumn digests = new PrimitiveColumn();
+
+    ValueDictionary() {
+        this(false);
+    }
+
+    /**
+     * @param digestLongStrings hold long strings as their digests only
+     */
+    ValueDictionary(
+            final boolean digestLongStrings
+    ) {
+        this.digestLongStrings = digestLongStrings;
+    }
+
+    private static int code(
+            final int kind,
+            final int index
+    ) {
+        if (index > INDEX_MASK) {
+            throw new IllegalStateException("Value dictionary capacity exceeded");
+        }
+        return (kind << KIND_SHIFT) | index;
+    }
+
+    /**
+     * @return the code of the given value, registering the value if it hasn't been seen before
+     */
+    int encode(
+            final Object value
+    ) {
+        if (value == null) {
+            return ABSENT;
+        } else if (value instanceof Integer) {
+            return code(KIND_INT, ints.indexOf((Integer) value));
+        } else if (value instanceof Long) {
+            return code(KIND_LONG, longs.indexOf((Long) value));
+        } else if (value instanceof Float) {
+            return code(KIND_FLOAT, floats.indexOf(Float.floatToIntBits((Float) value)));
+        } else if (value instanceof Double) {
+            return code(KIND_DOUBLE, doubles.indexOf(Double.doubleToLongBits((Double) value)));
+        } else if (digestLongStrings && value instanceof String &&
+                ((String) value).length() >= DIGESTED_STRING_MINIMUM_LENGTH) {
+            return code(KIND_DIGEST, digests.indexOf(Digest.of((String) value).bits));
+        }
+
+        final Integer existing = referenceCodes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        final int newCode = code(KIND_REFERENCE, references.size());
+        references.add(value);
+        referenceCodes.put(value, newCode);
+        return newCode;
+    }
+
+    /**
+     * @return the value of the given code, or {@code null} for {@link #ABSENT}. A digested
+     *   string decodes to its {@link Digest}.
+     */
+    Object decode(
+            final int code
+    ) {
+        if (code == ABSENT) {
+            return null;
+        }
+        final int index = code & INDEX_MASK;
+        switch (code >>> KIND_SHIFT) {
+            case KIND_REFERENCE:
+                return references.get(index);
+            case KIND_INT:
+                return (int) ints.get(index);
+            case KIND_LONG:
+                return longs.get(index);
+            case KIND_FLOAT:
+                return Float.intBitsToFloat((int) floats.get(index));
+            case KIND_DOUBLE:
+                return Double.longBitsToDouble(doubles.get(index));
+            case KIND_DIGEST:
+                return new Digest(digests.get(index));
+            default:
+                throw new IllegalArgumentException("Not a value dictionary code: " + code);
+        }
+    }
+
+    /**
+     * @return the number of distinct values held
+     */
+    int size() {
+        return references.size() + ints.size + longs.size + floats.size + doubles.size + digests.size;
+    }
+
+    /**
+     * Distinct primitive values as raw bits, indexed by an open-addressing hash table.
+     */
+    private static class PrimitiveColumn {
+
+        private static final int NO_SLOT = -1;
+
+        private long[] values = new long[8];
+        private int size;
+
+        /**
+         * Hash table slots hold an index into {@code values}, or {@code NO_SLOT}.
+         */
+        private int[] slots = newSlots(16);
+
+        private static int[] newSlots(
+                final int capacity
+        ) {
+            final int[] s = new int[capacity];
+            Arrays.fill(s, NO_SLOT);
+            return s;
+        }
+
+        private static int hash(
+                final long bits
+        ) {
+            final long h = bits * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        long get(
+                final int index
+        ) {
+            return values[index];
+        }
+
+        int indexOf(
+                final long bits
+        ) {
+            int slot = hash(bits) & (slots.length - 1);
+            while (slots[slot] != NO_SLOT) {
+                if (values[slots[slot]] == bits) {
+                    return slots[slot];
+                }
+                slot = (slot + 1) & (slots.length - 1);
+            }
+
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = bits;
+            slots[slot] = size;
+            size++;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private void rehash() {
+            slots = newSlots(slots.length * 2);
+            for (int index = 0; index < size; index++) {
+                int slot = hash(values[index]) & (slots.length - 1);
+                while (slots[slot] != NO_SLOT) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                slots[slot] = index;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The stages of verification, connected by bounded queues so that waiting on the network
+ * overlaps with the CPU-bound scanning of classes:
+ *
+ * <ol>
+ * <li>Resolve: one thread resolves the released versions in batches of
+ *   {@code resolutionThreads} versions.</li>
+ * <li>Read and scan: {@code parallelism} threads each read the entries of one version at a
+ *   time, fanning the parsing of its classes out to the class executor, see
+ *   {@code AsmScanner}.</li>
+ * <li>Record: the calling thread records the fields of each version, typically in
+ *   {@code ConstantsData}, in the order the versions are given.</li>
+ * </ol>
+ *
+ * Version N+1 is thus resolved while version N is scanned. A full queue blocks the stage
+ * feeding it, and at most {@code 2 * parallelism} versions are between resolution and
+ * recording at once, so memory stays bounded however many versions there are. With a
+ * parallelism of 1, the stages take turns on the calling thread.
+ *
+ * Every version that can't be resolved is reported. Otherwise the first version, in
+ * the order given, that can't be scanned is reported, and no later version is scanned.
+ * Once the recording stage is done, no further version is resolved or scanned.
+ */
+class VerificationPipeline {
+
+    /**
+     * A version to be scanned, numbered in the order given from the current project's
+     * version, which is numbered 0 if scanned.
+     */
+    private static class Work {
+
+        private static final Work END = new Work(-1, null, Option.none());
+
+        private final int index;
+        private final String version;
+
+        /**
+         * None if the version couldn't be resolved.
+         */
+        private final Option<Supplier<Either<Message, List<Tuple2<String, Object>>>>> fields;
+
+        private Work(
+                final int index,
+                final String version,
+                final Option<Supplier<Either<Message, List<Tuple2<String, Object>>>>> fields
+        ) {
+            this.index = index;
+            this.version = version;
+            this.fields = fields;
+        }
+
+    }
+
+    private static class Scanned {
+
+        private static final Scanned END = new Scanned(Work.END, Option.none(), null);
+
+        private final Work work;
+
+        /**
+         * None if the version wasn't scanned.
+         */
+        private final Option<Either<Message, List<Tuple2<String, Object>>>> fields;
+
+        private final Throwable thrown;
+
+        private Scanned(
+                final Work work,
+                final Option<Either<Message, List<Tuple2<String, Object>>>> fields,
+                final Throwable thrown
+        ) {
+            this.work = work;
+            this.fields = fields;
+            this.thrown = thrown;
+        }
+
+    }
+
+    private final Mojo mojo;
+    private final BiConsumer<String, List<Tuple2<String, Object>>> recorder;
+    private final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles;
+    private final boolean scanCurrentVersion;
+    private final BooleanSupplier done;
+
+    /**
+     * Written by the resolving stage only.
+     */
+    private final java.util.List<ArtifactResult> unresolved = new ArrayList<>();
+    private volatile boolean resolutionFailed = false;
+
+    /**
+     * Written by the recording stage only.
+     */
+    private Option<Message> scanFailure = Option.none();
+    private volatile boolean scanFailed = false;
+    private volatile boolean stopped = false;
+    private int recorded = 0;
+
+    /**
+     * Set once recording fails, for the concurrent stages to stop waiting on one another.
+     */
+    private volatile boolean cancelled = false;
+
+    private VerificationPipeline(
+            final Mojo mojo,
+            final BiConsumer<String, List<Tuple2<String, Object>>> recorder,
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles,
+            final boolean scanCurrentVersion,
+            final BooleanSupplier done
+    ) {
+        this.mojo = mojo;
+        this.recorder = recorder;
+        this.scannedClassFiles = scannedClassFiles;
+        this.scanCurrentVersion = scanCurrentVersion;
+        this.done = done;
+    }
+
+    /**
+     * Records the {@code Constant} fields of the current project's version and of each of
+     * the resolvable versions.
+     *
+     * @return the number of versions recorded
+     */
+    static Either<Message, Integer> run(
+            final Mojo mojo,
+            final List<String> resolvableVersions,
+            final ConstantsData constantsData
+    ) {
+        return run(mojo, resolvableVersions, constantsData::recordConstantFields, new ScannedClassFiles<>(), true);
+    }
+
+    static Either<Message, Integer> run(
+            final Mojo mojo,
+            final List<String> resolvableVersions,
+            final BiConsumer<String, List<Tuple2<String, Object>>> recorder,
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles,
+            final boolean scanCurrentVersion
+    ) {
+        return run(mojo, resolvableVersions, recorder, scannedClassFiles, scanCurrentVersion, () -> false);
+    }
+
+    /**
+     * Hands the {@code Constant} fields of the current project's version, if it is to be
+     * scanned, and then of each of the resolvable versions to the recorder in the order
+     * given.
+     *
+     * @param scannedClassFiles the scan results of class files, shared by all the runs
+     *                          over the versions of one project
+     * @param done consulted after each version is recorded; once true, the remaining
+     *             versions are neither scanned nor recorded
+     * @return the number of versions recorded
+     */
+    static Either<Message, Integer> run(
+            final Mojo mojo,
+            final List<String> resolvableVersions,
+            final BiConsumer<String, List<Tuple2<String, Object>>> recorder,
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles,
+            final boolean scanCurrentVersion,
+            final BooleanSupplier done
+    ) {
+        final VerificationPipeline pipeline =
+                new VerificationPipeline(mojo, recorder, scannedClassFiles, scanCurrentVersion, done);
+        final Option<ExecutorService> executor = mojo.getScanExecution().versionExecutor();
+        if (executor.isDefined()) {
+            pipeline.runConcurrently(executor.get(), resolvableVersions);
+        } else {
+            pipeline.runSequentially(resolvableVersions);
+        }
+        mojo.getLog().debug(
+                "Reused the scan results of identical class files " + pipeline.scannedClassFiles.reused() +
+                        " times, out of " + pipeline.scannedClassFiles.size() + " distinct class files"
+        );
+        return pipeline.outcome();
+    }
+
+    private Work currentVersion() {
+        return new Work(
+                0,
+                mojo.getMavenProject().getVersion(),
+                Option.some(() -> MavenArtifactResolution.constantFieldsOfCurrentVersion(mojo))
+        );
+    }
+
+    private int firstResolvableIndex() {
+        return scanCurrentVersion ? 1 : 0;
+    }
+
+    private int batchSize() {
+        return Math.max(1, mojo.getResolutionThreads());
+    }
+
+    /**
+     * @param firstIndex number of the first of the versions
+     */
+    private List<Work> resolve(
+            final List<String> versions,
+            final int firstIndex
+    ) {
+        final List<ArtifactResult> results = MavenArtifactResolution.resolveArtifacts(mojo, versions);
+        return versions.zip(results).zipWithIndex().map(resolved -> {
+            final ArtifactResult result = resolved._1._2;
+            if (!result.isResolved()) {
+                unresolved.add(result);
+                resolutionFailed = true;
+                return new Work(firstIndex + resolved._2, resolved._1._1, Option.none());
+            }
+            return new Work(
+                    firstIndex + resolved._2,
+                    resolved._1._1,
+                    Option.some(() -> MavenArtifactResolution.constantFieldsOfArtifact(
+                            mojo,
+                            scannedClassFiles,
+                            result.getArtifact()
+                    ))
+            );
+        });
+    }
+
+    /**
+     * Versions aren't scanned once the outcome is certain to be a failure, or once
+     * recording is done.
+     */
+    private Option<Either<Message, List<Tuple2<String, Object>>>> scan(
+            final Work work
+    ) {
+        if (work.fields.isEmpty() || resolutionFailed || scanFailed || stopped || cancelled) {
+            return Option.none();
+        }
+        return Option.some(work.fields.get().get());
+    }
+
+    /**
+     * Expects the versions in the order given.
+     */
+    private void record(
+            final Work work,
+            final Option<Either<Message, List<Tuple2<String, Object>>>> fields
+    ) {
+        if (fields.isEmpty() || scanFailure.isDefined() || stopped) {
+            return;
+        }
+        if (fields.get().isLeft()) {
+            scanFailure = Option.some(fields.get().getLeft());
+            scanFailed = true;
+            return;
+        }
+        recorder.accept(work.version, fields.get().get());
+        recorded++;
+        stopped = done.getAsBoolean();
+    }
+
+    /**
+     * Being done with recording takes precedence over versions that couldn't be resolved
+     * meanwhile.
+     */
+    private Either<Message, Integer> outcome() {
+        if (stopped) {
+            return Either.right(recorded);
+        }
+        if (!unresolved.isEmpty()) {
+            return Either.left(MavenArtifactResolution.unresolvable(List.ofAll(unresolved)));
+        }
+        if (scanFailure.isDefined()) {
+            return Either.left(scanFailure.get());
+        }
+        return Either.right(recorded);
+    }
+
+    private void runSequentially(
+            final List<String> resolvableVersions
+    ) {
+        if (scanCurrentVersion) {
+            final Work current = currentVersion();
+            record(current, scan(current));
+        }
+        int index = firstResolvableIndex();
+        for (final List<String> batch : resolvableVersions.grouped(batchSize())) {
+            if (scanFailed || stopped) {
+                break;
+            }
+            for (final Work work : resolve(batch, index)) {
+                record(work, scan(work));
+            }
+            index += batch.size();
+        }
+    }
+
+    /**
+     * @return whether a permit was acquired before the pipeline was cancelled
+     */
+    private boolean acquire(
+            final Semaphore semaphore
+    ) throws InterruptedException {
+        while (!cancelled) {
+            if (semaphore.tryAcquire(PipelineQueue.CANCELLATION_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Should recording fail, the pipeline is cancelled and both queues drained before the
+     * failure is re-thrown, so that the resolving and scanning threads stop rather than
+     * block forever on the queues.
+     */
+    private void runConcurrently(
+            final ExecutorService executor,
+            final List<String> resolvableVersions
+    ) {
+        final int parallelism = mojo.getScanExecution().parallelism();
+        final PipelineQueue<Work> resolved = new PipelineQueue<>("Resolved versions", parallelism);
+        final PipelineQueue<Scanned> scanned = new PipelineQueue<>("Scanned versions", parallelism);
+        final Semaphore versionsInFlight = new Semaphore(2 * parallelism);
+        final long[] resolverAwaitingRecordingNanos = { 0 };
+        final BooleanSupplier isCancelled = () -> cancelled;
+
+        final Future<?> resolver = executor.submit(() -> {
+            try {
+                // The current project's version needs no resolution
+                if (scanCurrentVersion) {
+                    if (!acquire(versionsInFlight) || !resolved.put(currentVersion(), isCancelled)) {
+                        return null;
+                    }
+                }
+                int index = firstResolvableIndex();
+                for (final List<String> batch : resolvableVersions.grouped(batchSize())) {
+                    if (scanFailed || stopped || cancelled) {
+                        break;
+                    }
+                    for (final Work work : resolve(batch, index)) {
+                        if (!versionsInFlight.tryAcquire()) {
+                            final long start = System.nanoTime();
+                            final boolean acquired = acquire(versionsInFlight);
+                            resolverAwaitingRecordingNanos[0] += System.nanoTime() - start;
+                            if (!acquired) {
+                                return null;
+                            }
+                        }
+                        if (!resolved.put(work, isCancelled)) {
+                            return null;
+                        }
+                    }
+                    index += batch.size();
+                }
+            } finally {
+                for (int i = 0; i < parallelism; i++) {
+                    resolved.put(Work.END, isCancelled);
+                }
+            }
+            return null;
+        });
+
+        final List<Future<Object>> scanners = List.range(0, parallelism).map(i -> executor.submit(() -> {
+            try {
+                Work work;
+                while ((work = resolved.take(isCancelled)) != null && work != Work.END) {
+                    Scanned item;
+                    try {
+                        item = new Scanned(work, scan(work), null);
+                    } catch (final RuntimeException | Error e) {
+                        item = new Scanned(work, Option.none(), e);
+                    }
+                    if (!scanned.put(item, isCancelled)) {
+                        break;
+                    }
+                }
+            } finally {
+                scanned.put(Scanned.END, isCancelled);
+            }
+            return null;
+        }));
+
+        // Record versions in the order given, regardless of the order in which they complete
+        final TreeMap<Integer, Scanned> pending = new TreeMap<>();
+        int next = 0;
+        int ended = 0;
+        try {
+            while (ended < parallelism) {
+                final Scanned item = scanned.take(isCancelled);
+                if (item == Scanned.END) {
+                    ended++;
+                    continue;
+                }
+                if (item.thrown != null) {
+                    scanFailed = true;
+                    if (item.thrown instanceof Error) {
+                        throw (Error) item.thrown;
+                    }
+                    throw (RuntimeException) item.thrown;
+                }
+                pending.put(item.work.index, item);
+                for (Scanned n = pending.remove(next); n != null; n = pending.remove(next)) {
+                    next++;
+                    versionsInFlight.release();
+                    record(n.work, n.fields);
+                }
+            }
+        } catch (final InterruptedException e) {
+            cancel(resolved, scanned);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying", e);
+        } catch (final RuntimeException | Error e) {
+            cancel(resolved, scanned);
+            throw e;
+        }
+        ScanExecution.await(resolver);
+        scanners.forEach(ScanExecution::await);
+
+        if (mojo.getLog().isDebugEnabled()) {
+            mojo.getLog().debug(resolved.toString());
+            mojo.getLog().debug(scanned.toString());
+            mojo.getLog().debug(
+                    "Pipeline stage idle time, summed over the threads of each stage: resolve " +
+                            (resolved.producersBlockedMillis() +
+                                    TimeUnit.NANOSECONDS.toMillis(resolverAwaitingRecordingNanos[0])) +
+                            " ms, scan " +
+                            (resolved.consumersIdleMillis() + scanned.producersBlockedMillis()) +
+                            " ms, record " +
+                            scanned.consumersIdleMillis() +
+                            " ms"
+            );
+        }
+    }
+
+    private void cancel(
+            final PipelineQueue<Work> resolved,
+            final PipelineQueue<Scanned> scanned
+    ) {
+        cancelled = true;
+        resolved.drain();
+        scanned.drain();
+    }
+
+}
@@ -14,10 +14,9 @@
 
 package vivid.polypara.maven;
 
-import io.vavr.Tuple2;
 import io.vavr.collection.List;
-import io.vavr.collection.Map;
 import io.vavr.control.Either;
+import io.vavr.control.Option;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -29,8 +28,10 @@ import org.codehaus.plexus.i18n.I18N;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.objectweb.asm.ClassReader;
-import vivid.polypara.annotation.Constant;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * @since 0.2.0
@@ -41,7 +42,10 @@ import vivid.polypara.annotation.Constant;
 )
 public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
 
+    private Option<ConstantTableCache> constantTableCache;
     private I18nContext i18nContext;
+    private ScanExecution scanExecution;
+    private final SymbolTable symbolTable = new SymbolTable();
 
 
 
@@ -86,6 +90,10 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
      * Expect these artifact versions to be available Process artifacts of these versions.
      * An error will be generated if a given artifact version is not available in the local repository.
      *
+     * Since 0.5.0, a version may also be a Maven version range such as {@code [1.0,3.0)},
+     * standing for all released versions within the range, or {@code last:N}, standing for
+     * the latest N released versions preceding the current project's version.
+     *
      * @since 0.2.0
      */
     @Parameter(alias = Static.POM_POLYPARA_VERSIONS_CONFIGURATION_KEY)
@@ -110,12 +118,178 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
     @Parameter(property = Static.POM_POLYPARA_REPORTING_LEVEL_CONFIGURATION_KEY, defaultValue = "ERROR")
     private ReportingLevel reportingLevel;
 
+    enum DataStore {
+        /**
+         * Plain in-memory index structures.
+         */
+        MEMORY,
+
+        /**
+         * An embedded graph database instantiated in a temporary directory.
+         */
+        GRAPH,
+
+        /**
+         * Value columns and values held in direct buffers outside the Java heap.
+         */
+        OFF_HEAP,
+
+        /**
+         * Run files sorted by field name in a temporary directory, merged across versions.
+         */
+        SPILL
+    }
+
+    /**
+     * Reuse the {@code @Constant} fields found in released artifacts from a persistent cache,
+     * rather than scanning the artifacts again on every build.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_CACHE_CONFIGURATION_KEY, defaultValue = "true")
+    private boolean cache;
+
+    /**
+     * Location of the persistent cache. Defaults to {@code .cache/polypara} within the
+     * local Maven repository, so that the cache is shared by all projects and survives
+     * {@code mvn clean}.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_CACHE_DIRECTORY_CONFIGURATION_KEY)
+    private File cacheDirectory;
+
+    /**
+     * Size in bytes beyond which the least-recently used entries are evicted from the
+     * persistent cache.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_CACHE_MAXIMUM_SIZE_CONFIGURATION_KEY, defaultValue = "67108864")
+    private long cacheMaximumSize;
+
+    /**
+     * Number of threads resolving and scanning versions and their classes in parallel.
+     * {@code 0} selects one thread per available processor core; {@code 1} scans
+     * sequentially. The results are identical either way.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_THREADS_CONFIGURATION_KEY, defaultValue = "0")
+    private int threads;
+
+    /**
+     * Number of artifact versions downloaded concurrently from remote repositories. All
+     * versions are resolved together, and all versions that can't be resolved are reported.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_RESOLUTION_THREADS_CONFIGURATION_KEY, defaultValue = "5")
+    private int resolutionThreads;
+
+    /**
+     * Verify the current project's build output against the constants baseline written by
+     * the {@code baseline} goal, rather than against the released versions themselves.
+     * No artifacts are resolved and the configured versions are disregarded.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_USE_BASELINE_CONFIGURATION_KEY, defaultValue = "false")
+    private boolean useBaseline;
+
+    /**
+     * Location of the constants baseline.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(
+            property = Static.POM_POLYPARA_BASELINE_FILE_CONFIGURATION_KEY,
+            defaultValue = "${project.basedir}/polypara-baseline.txt"
+    )
+    private File baselineFile;
+
+    /**
+     * Scan only the versions needed to locate the changes of field values, rather than
+     * all versions. See {@code VersionBisection}.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_BISECT_CONFIGURATION_KEY, defaultValue = "false")
+    private boolean bisect;
+
+    /**
+     * When bisecting, also scan every so many versions from the start, so that a value
+     * changing and changing back between the scanned versions can go unnoticed only within
+     * that many versions. {@code 0} starts from the oldest and newest versions alone.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_BISECTION_SAMPLING_CONFIGURATION_KEY, defaultValue = "0")
+    private int bisectionSampling;
+
+    /**
+     * Stop at the first confirmed constancy violation, failing the build without scanning
+     * the remaining versions. The current project's version is scanned first, followed by
+     * the released versions from the latest to the oldest, so that recent changes of
+     * value are confirmed early. Only the versions scanned by then are reported. Applies
+     * only when the {@code reportingLevel} is {@code ERROR}.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_FAIL_FAST_CONFIGURATION_KEY, defaultValue = "false")
+    private boolean failFast;
+
+    /**
+     * Selects the storage of {@code @Constant} field information during verification.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_DATA_STORE_CONFIGURATION_KEY, defaultValue = "MEMORY")
+    private DataStore dataStore;
+
+    /**
+     * Estimated footprint in bytes of the {@code MEMORY} and {@code OFF_HEAP} data stores
+     * beyond which {@code @Constant} field information is spilled to disk, as by the
+     * {@code SPILL} data store. {@code 0} sets no budget.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_MEMORY_BUDGET_CONFIGURATION_KEY, defaultValue = "0")
+    private long memoryBudget;
+
+    enum ValueStorage {
+        /**
+         * Every distinct value is held.
+         */
+        VALUES,
+
+        /**
+         * Long strings are held as 64-bit digests only, and re-read from their versions
+         * when reported.
+         */
+        DIGESTS
+    }
+
+    /**
+     * Selects how field values are held by the data store. Disregarded when verifying
+     * against the baseline, whose values are held in memory anyway.
+     *
+     * @since 0.5.0
+     */
+    @Parameter(property = Static.POM_POLYPARA_VALUE_STORAGE_CONFIGURATION_KEY, defaultValue = "VALUES")
+    private ValueStorage valueStorage;
+
 
 
     //
     // Provide access to this Mojo's execution context
     //
 
+    @Override
+    public Option<ConstantTableCache> getConstantTableCache() {
+        return constantTableCache;
+    }
+
     @Override
     public I18nContext getI18nContext() {
         return i18nContext;
@@ -136,6 +310,21 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
         return remoteRepositories;
     }
 
+    @Override
+    public int getResolutionThreads() {
+        return resolutionThreads;
+    }
+
+    @Override
+    public ScanExecution getScanExecution() {
+        return scanExecution;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
     @Override
     public RepositorySystem getRepositorySystem() {
         return repositorySystem;
@@ -152,6 +341,68 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
     // Mojo logic
     //
 
+    private Option<ConstantTableCache> newConstantTableCache() {
+        if (!cache) {
+            return Option.none();
+        }
+        final File directory = cacheDirectory != null
+                ? cacheDirectory
+                : new File(repositorySystemSession.getLocalRepository().getBasedir(), ".cache/polypara");
+        getLog().debug("Using the constant table cache in " + directory);
+        return Option.of(new ConstantTableCache(this, directory.toPath(), cacheMaximumSize));
+    }
+
+    private boolean digestsValues() {
+        return valueStorage == ValueStorage.DIGESTS && !useBaseline;
+    }
+
+    private ConstantsData newConstantsData(
+            final List<String> allVersions
+    ) throws IOException {
+        getLog().debug("Using the data store: " + dataStore + ", holding " + valueStorage);
+        switch (dataStore) {
+            case GRAPH:
+                return new ConstantsGraphImpl(this, allVersions, digestsValues());
+            case MEMORY:
+                return withinMemoryBudget(
+                        allVersions,
+                        () -> new ConstantsMemoryImpl(this, allVersions, digestsValues())
+                );
+            case OFF_HEAP:
+                return withinMemoryBudget(
+                        allVersions,
+                        () -> new ConstantsMemoryImpl(
+                                this,
+                                allVersions,
+                                new OffHeapValueColumns(this, allVersions.size(), digestsValues())
+                        )
+                );
+            case SPILL:
+                return new ConstantsSpillImpl(this, allVersions);
+            default:
+                throw new SneakyMojoException(
+                        new MojoExecutionException(
+                                VPE1InternalError.message(
+                                        String.format(
+                                                "Unexpected DataStore value: %s",
+                                                dataStore
+                                        )
+                                )
+                                        .render(this)
+                        )
+                );
+        }
+    }
+
+    private ConstantsData withinMemoryBudget(
+            final List<String> allVersions,
+            final Supplier<ConstantsData> inMemory
+    ) {
+        return memoryBudget > 0
+                ? new BudgetedConstantsData(this, allVersions, memoryBudget, inMemory)
+                : inMemory.get();
+    }
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         i18nContext = new I18nContext(i18n);
 
@@ -172,14 +423,24 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
         //
         // B) All resolvable versions, from either the user's local or remote Maven repositories.
         //    These versions are specified as plugin parameters in the POM, available via the
-        //    {@code specifiedVersions} parameter.
+        //    {@code specifiedVersions} parameter, with version ranges expanded. When
+        //    verifying against the baseline, these are instead the versions of the baseline.
         //    All resolvable versions exclude the current Maven project version, even if it
         //    explicitly included in the POM plugin configuration.
         //
         // C) The union of these two, being all versions under consideration.
         //
-        final List<String> allVersions = List
-                .ofAll(specifiedVersions != null ? specifiedVersions : List.empty())
+        final Option<ConstantsBaseline> baseline = useBaseline
+                ? Option.of(rightOrThrow(ConstantsBaseline.read(this, baselineFile)))
+                : Option.none();
+        final List<String> allVersions = (
+                baseline.isDefined()
+                        ? baseline.get().versions()
+                        : rightOrThrow(VersionCatalog.expand(
+                                this,
+                                List.ofAll(specifiedVersions != null ? specifiedVersions : List.empty())
+                        ))
+        )
                 .append(mavenProject.getVersion())
                 .distinct();
         final List<String> resolvableVersions = allVersions.remove(mavenProject.getVersion());
@@ -193,6 +454,12 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
             return;
         }
 
+        constantTableCache = baseline.isDefined() ? Option.none() : newConstantTableCache();
+
+        baseline.forEach(b -> getLog().info(i18nContext.getText(
+                "vivid.polypara.action.verifying-constants-against-baseline",
+                baselineFile.getAbsolutePath()
+        )));
         getLog().info(i18nContext.getText(
                 "vivid.polypara.action.verifying-constants",
                 allVersions.size(),
@@ -209,64 +476,96 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
         // such exceptions in the catch block. This sneakiness reduces clutter from exception
         // handling code, enabling crisper functional style.
         try (
-                // Instantiate a new graph DB to store processing data.
-                final ConstantsData constantsData = new ConstantsGraphImpl(this, allVersions)
+                final ScanExecution execution = ScanExecution.withThreads(threads)
         ) {
+            scanExecution = execution;
+            getLog().debug("Scanning with parallelism " + execution.parallelism());
+
             // Record @Constant fields:
             //
-            // Map each version to a path to the corresponding Jar file within the local
-            // Maven repository. Maven might be required to download the Jar file and store
-            // it in the local repository beforehand.
+            // Resolve each version to the corresponding Jar file within the local Maven
+            // repository. Maven might be required to download the Jar file and store it in
+            // the local repository beforehand.
             // All versions under consideration are thus processed, both implied (the project)
             // and explicit (configured in the plugin section in the POM).
-            final Either<Message, Map<String, List<ClassReader>>> mapping =
-                    MavenArtifactResolution.mapVersionsToClassReaders(this, resolvableVersions);
-            if (mapping.isLeft()) {
-                final Message message = mapping.getLeft();
-                throw new MojoExecutionException(
-                        message.render(this),
-                        message.getCause().getOrNull()
-                );
-            }
-
-            // Given a mapping from version strings to Jar file paths, scan each of
-            // the Java class files within the Jars, looking for fields annotated
-            // with our Constant annotation.
-            mapping.get().map((v, cr) -> new Tuple2<>(v, AsmScanner.scan(
-                    new AsmFieldAnnotationScanner(this, Constant.class),
-                    List.ofAll(cr)
-            )))
-
-                    // Store found fields and their values per version in the database.
-                    .forEach(constantsData::recordConstantFields);
-            getLog().info(
-                    i18nContext.getText(
-                            "vivid.polypara.action.found-n-constant-fields",
-                            constantsData.constantFieldsCount(),
-                            Static.mavenGAOf(mavenProject)
-                    )
-            );
-
-
-            // Compute @Constant violations:
+            // Each of the Java class files within the Jars is scanned, looking for fields
+            // annotated with our Constant annotation, unless the fields of that Jar are
+            // already known to its constants index or to the constant table cache.
+            // The found fields and their values are stored per version in the database.
+            // These stages overlap, see VerificationPipeline.
             //
-            // Examine the constancy of each field's value across versions, and report violations.
-            final List<ConstancyViolation> violations = constantsData.constancyViolationDescriptions();
-
-
-            // In the event of violations, report them and fail the build:
+            // When verifying against the baseline, only the current project's build output is
+            // scanned; the fields of all other versions are read from the baseline.
             //
-            MavenLogReporting.report(this, violations);
-            if (!violations.isEmpty() && reportingLevel == ReportingLevel.ERROR) {
-                throw new MojoFailureException(
-                        i18nContext.getText(
-                                "vivid.polypara.error.vpe-2-field-value-constancy-verification-failed"
-                        )
-                );
+            // When bisecting, only the versions needed to locate the changes of field values
+            // are processed, and only those are stored, see VersionBisection.
+            //
+            // When failing fast, the versions are processed from the latest to the oldest
+            // until a constancy violation is confirmed, see ConstancyDetector.
+            if (baseline.isDefined()) {
+                try (
+                        // Instantiate a new data store to hold processing data.
+                        final ConstantsData constantsData = newConstantsData(allVersions)
+                ) {
+                    resolvableVersions.forEach(v -> constantsData.recordConstantFields(v, baseline.get().fieldsOf(v)));
+                    rightOrThrow(VerificationPipeline.run(this, List.empty(), constantsData));
+                    verify(constantsData);
+                }
+            } else if (bisect) {
+                final VersionBisection bisection =
+                        rightOrThrow(VersionBisection.run(this, allVersions, bisectionSampling));
+                getLog().info(i18nContext.getText(
+                        "vivid.polypara.action.bisection-scanned-n-of-m-versions",
+                        bisection.scannedVersions().size(),
+                        allVersions.size(),
+                        bisection.rounds()
+                ));
+                try (
+                        // Instantiate a new data store to hold processing data.
+                        final ConstantsData constantsData = newConstantsData(bisection.scannedVersions())
+                ) {
+                    bisection.recordInto(constantsData);
+                    verify(constantsData);
+                }
+            } else if (failFast && reportingLevel == ReportingLevel.ERROR) {
+                try (
+                        // Instantiate a new data store to hold processing data.
+                        final ConstantsData constantsData = newConstantsData(allVersions)
+                ) {
+                    final ConstancyDetector detector = new ConstancyDetector(allVersions);
+                    final int recorded = rightOrThrow(VerificationPipeline.run(
+                            this,
+                            new VersionCatalog(resolvableVersions).inVersionOrder().reverse().map(v -> v.start),
+                            (version, fields) -> {
+                                constantsData.recordConstantFields(version, fields);
+                                detector.record(version, fields);
+                            },
+                            new ScannedClassFiles<>(),
+                            true,
+                            () -> detector.firstViolation().isDefined()
+                    ));
+                    detector.firstViolation()
+                            .filter(fqn -> recorded < allVersions.size())
+                            .forEach(fqn -> getLog().info(i18nContext.getText(
+                                    "vivid.polypara.action.fail-fast-stopped",
+                                    recorded,
+                                    allVersions.size(),
+                                    fqn
+                            )));
+                    verify(constantsData);
+                }
+            } else {
+                try (
+                        // Instantiate a new data store to hold processing data.
+                        final ConstantsData constantsData = newConstantsData(allVersions)
+                ) {
+                    rightOrThrow(VerificationPipeline.run(this, resolvableVersions, constantsData));
+                    verify(constantsData);
+                }
             }
         } catch (final SneakyMojoException e) {
             throw SneakyMojoException.unwrap(e);
-        } catch (final MojoFailureException e) {
+        } catch (final MojoExecutionException | MojoFailureException e) {
             throw e;
         } catch (final Exception e) {
             throw new MojoExecutionException(
@@ -279,4 +578,59 @@ public class VerifyConstantsMojo extends AbstractMojo implements Mojo {
         }
     }
 
+    /**
+     * Reports the constancy violations among the recorded fields.
+     */
+    private void verify(
+            final ConstantsData constantsData
+    ) throws MojoExecutionException, MojoFailureException {
+        constantTableCache.forEach(c -> getLog().info(
+                i18nContext.getText(
+                        "vivid.polypara.action.constant-table-cache-statistics",
+                        c.hits(),
+                        c.hits() + c.misses()
+                )
+        ));
+        getLog().info(
+                i18nContext.getText(
+                        "vivid.polypara.action.found-n-constant-fields",
+                        constantsData.constantFieldsCount(),
+                        Static.mavenGAOf(mavenProject)
+                )
+        );
+
+
+        // Compute @Constant violations:
+        //
+        // Examine the constancy of each field's value across versions, and report violations.
+        final List<ConstancyViolation> violations = digestsValues()
+                ? rightOrThrow(DigestedValues.restore(this, constantsData.constancyViolationDescriptions()))
+                : constantsData.constancyViolationDescriptions();
+
+
+        // In the event of violations, report them and fail the build:
+        //
+        MavenLogReporting.report(this, violations);
+        if (!violations.isEmpty() && reportingLevel == ReportingLevel.ERROR) {
+            throw new MojoFailureException(
+                    i18nContext.getText(
+                            "vivid.polypara.error.vpe-2-field-value-constancy-verification-failed"
+                    )
+            );
+        }
+    }
+
+    private <T> T rightOrThrow(
+            final Either<Message, T> either
+    ) throws MojoExecutionException {
+        if (either.isLeft()) {
+            final Message message = either.getLeft();
+            throw new MojoExecutionException(
+                    message.render(this),
+                    message.getCause().getOrNull()
+            );
+        }
+        return either.get();
+    }
+
 }
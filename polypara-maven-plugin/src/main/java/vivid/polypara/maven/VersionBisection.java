@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Scans only the versions needed to locate the changes of {@code Constant} field values.
+ *
+ * The oldest version, the newest version and the current project's version are scanned
+ * first, along with every {@code sampling}-th version when sampling. Then, in rounds, the
+ * midpoint of each span between neighbouring scanned versions is scanned if any field's
+ * value, or presence, differs between the two ends of the span. Spans whose ends agree are
+ * taken to be constant throughout. Bisection ends once every span whose ends disagree
+ * has no versions left in between, so each change of value is located exactly, between
+ * two adjacent versions.
+ *
+ * A value that changes and then changes back within a span whose ends agree goes
+ * unnoticed; sampling bounds the length of such spans. The midpoints of each round are
+ * resolved and scanned together by the {@code VerificationPipeline}.
+ */
+class VersionBisection {
+
+    private final Mojo mojo;
+
+    /**
+     * All versions under consideration, in ascending version order.
+     */
+    private final List<String> versionsInOrder;
+
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    /**
+     * Fields of the scanned versions, by position in version order.
+     */
+    private final TreeMap<Integer, List<Tuple2<String, Object>>> scanned = new TreeMap<>();
+
+    /**
+     * Fields of the scanned versions, by position in version order, for comparison.
+     */
+    private final Map<Integer, Map<String, Object>> valuesByName = new HashMap<>();
+
+    private final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles = new ScannedClassFiles<>();
+
+    private int rounds = 0;
+
+    private VersionBisection(
+            final Mojo mojo,
+            final List<String> allVersions
+    ) {
+        this.mojo = mojo;
+        this.versionsInOrder = new VersionCatalog(allVersions).inVersionOrder().map(v -> v.start);
+        versionsInOrder.zipWithIndex().forEach(v -> positions.put(v._1, v._2));
+    }
+
+    /**
+     * @param allVersions all versions under consideration, including the current
+     *                    project's version
+     * @param sampling when positive, also scan every {@code sampling}-th version in the
+     *                 first round
+     */
+    static Either<Message, VersionBisection> run(
+            final Mojo mojo,
+            final List<String> allVersions,
+            final int sampling
+    ) {
+        final VersionBisection bisection = new VersionBisection(mojo, allVersions);
+        final int last = bisection.versionsInOrder.size() - 1;
+        final TreeSet<Integer> first = new TreeSet<>();
+        first.add(0);
+        first.add(last);
+        if (sampling > 0) {
+            for (int position = sampling; position < last; position += sampling) {
+                first.add(position);
+            }
+        }
+        first.add(bisection.positions.get(mojo.getMavenProject().getVersion()));
+
+        for (SortedSet<Integer> round = first; !round.isEmpty(); round = bisection.midpoints()) {
+            final Either<Message, Integer> recorded = bisection.scan(round);
+            if (recorded.isLeft()) {
+                return Either.left(recorded.getLeft());
+            }
+        }
+        return Either.right(bisection);
+    }
+
+    private Either<Message, Integer> scan(
+            final SortedSet<Integer> round
+    ) {
+        rounds++;
+        final String currentVersion = mojo.getMavenProject().getVersion();
+        final List<String> versions = List.ofAll(round).map(versionsInOrder::get);
+        mojo.getLog().debug(
+                "Bisection round " + rounds + " scans:  " + Static.humanReadableVersionList(versions)
+        );
+        return VerificationPipeline.run(
+                mojo,
+                versions.remove(currentVersion),
+                this::record,
+                scannedClassFiles,
+                versions.contains(currentVersion)
+        );
+    }
+
+    private void record(
+            final String version,
+            final List<Tuple2<String, Object>> fields
+    ) {
+        final int position = positions.get(version);
+        final Map<String, Object> values = new HashMap<>();
+        fields.forEach(f -> values.put(f._1, f._2));
+        scanned.put(position, fields);
+        valuesByName.put(position, values);
+    }
+
+    /**
+     * @return the midpoints of the spans whose ends disagree and that have versions left in
+     *   between
+     */
+    private SortedSet<Integer> midpoints() {
+        final TreeSet<Integer> midpoints = new TreeSet<>();
+        Integer previous = null;
+        for (final Integer position : scanned.keySet()) {
+            if (previous != null &&
+                    position - previous > 1 &&
+                    !valuesByName.get(previous).equals(valuesByName.get(position))) {
+                midpoints.add((previous + position) >>> 1);
+            }
+            previous = position;
+        }
+        return midpoints;
+    }
+
+    /**
+     * @return the scanned versions, in ascending version order
+     */
+    List<String> scannedVersions() {
+        return List.ofAll(scanned.keySet()).map(versionsInOrder::get);
+    }
+
+    int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Records the fields of each of the scanned versions.
+     */
+    void recordInto(
+            final ConstantsData constantsData
+    ) {
+        scanned.forEach((position, fields) ->
+                constantsData.recordConstantFields(versionsInOrder.get(position), fields));
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.artifact.ArtifactUtils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * All versions under consideration, sorted once by their parsed Maven artifact version.
+ *
+ * Versions are also given ordinals, their order of appearance in the list of versions
+ * the catalog was created from.
+ */
+class VersionCatalog {
+
+    /**
+     * Selects the latest N released versions preceding the current project's version,
+     * such as {@code last:5}.
+     */
+    private static final Pattern LAST_RELEASES_SELECTOR = Pattern.compile("last:(\\d{1,9})");
+
+    private final List<SimpleVersionRange> inVersionOrder;
+
+    private final int[] ordinalsInVersionOrder;
+
+    VersionCatalog(
+            final List<String> versions
+    ) {
+        final List<Tuple2<SimpleVersionRange, Integer>> sorted = versions
+                .map(v -> new SimpleVersionRange(v, Option.none()))
+                .zipWithIndex()
+                .sortBy(Tuple2::_1);
+        this.inVersionOrder = sorted.map(Tuple2::_1);
+        this.ordinalsInVersionOrder = sorted
+                .map(Tuple2::_2)
+                .toJavaStream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * @return all versions in ascending version order
+     */
+    List<SimpleVersionRange> inVersionOrder() {
+        return inVersionOrder;
+    }
+
+    /**
+     * @return the ordinals of all versions in ascending version order. Not to be modified.
+     */
+    int[] ordinalsInVersionOrder() {
+        return ordinalsInVersionOrder;
+    }
+
+    /**
+     * Expands the version range expressions and selectors among the versions specified in
+     * the POM into the released versions they denote, found in the repositories' metadata.
+     * A version range is written in Maven's version range syntax, such as
+     * {@code [1.0,3.0)}. Other versions are taken literally.
+     *
+     * @return the specified versions, expanded, without duplicates
+     */
+    static Either<Message, List<String>> expand(
+            final Mojo mojo,
+            final List<String> specifiedVersions
+    ) {
+        List<String> expanded = List.empty();
+        for (final String specifiedVersion : specifiedVersions) {
+            final String version = specifiedVersion.trim();
+            final Matcher lastReleases = LAST_RELEASES_SELECTOR.matcher(version);
+            final Option<String> versionRange = lastReleases.matches()
+                    ? Option.of("[0," + mojo.getMavenProject().getVersion() + ")")
+                    : isVersionRange(version) ? Option.of(version) : Option.none();
+            if (versionRange.isEmpty()) {
+                expanded = expanded.append(version);
+                continue;
+            }
+
+            final Either<Message, List<String>> resolved =
+                    MavenArtifactResolution.resolveVersionRange(mojo, versionRange.get());
+            if (resolved.isLeft()) {
+                return resolved;
+            }
+            final List<String> released = resolved.get().filter(v -> !ArtifactUtils.isSnapshot(v));
+            expanded = expanded.appendAll(
+                    lastReleases.matches()
+                            ? released.takeRight(Integer.parseInt(lastReleases.group(1)))
+                            : released
+            );
+        }
+        return Either.right(expanded.distinct());
+    }
+
+    private static boolean isVersionRange(
+            final String version
+    ) {
+        return version.startsWith("[") || version.startsWith("(");
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArtifactChecksumsTest {
+
+    private static final String SHA1_OF_ABC = "a9993e364706816aba3e25717850c26c9cd0d89d";
+    private static final String MD5_OF_ABC = "900150983cd24fb0d6963f7d28e17f72";
+
+    private static Artifact artifactOf(
+            final Path directory,
+            final String contents
+    ) throws IOException {
+        final File file = directory.resolve("a-1.0.jar").toFile();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.US_ASCII));
+        return new DefaultArtifact("g:a:1.0").setFile(file);
+    }
+
+    private static void sidecar(
+            final Path directory,
+            final String suffix,
+            final String checksum
+    ) throws IOException {
+        Files.write(directory.resolve("a-1.0.jar" + suffix), checksum.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void digests(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File file = artifactOf(directory, "abc").getFile();
+        assertEquals(SHA1_OF_ABC, ArtifactChecksums.digest(file, ArtifactChecksums.SHA1));
+        assertEquals(MD5_OF_ABC, ArtifactChecksums.digest(file, ArtifactChecksums.MD5));
+    }
+
+    @Test
+    void matchingSha1IsCarriedByTheArtifact(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Artifact artifact = artifactOf(directory, "abc");
+        sidecar(directory, ".sha1", SHA1_OF_ABC.toUpperCase(Locale.ROOT) + "  a-1.0.jar\n");
+
+        final Option<Artifact> verified = ArtifactChecksums.verified(artifact);
+        assertEquals(
+                SHA1_OF_ABC,
+                verified.get().getProperty(ArtifactChecksums.VERIFIED_SHA1_ARTIFACT_PROPERTY, null)
+        );
+        assertEquals(SHA1_OF_ABC, ConstantTableCache.keyOf(verified.get()));
+    }
+
+    @Test
+    void truncatedFilesDontMatchTheirChecksum(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Artifact artifact = artifactOf(directory, "ab");
+        sidecar(directory, ".sha1", SHA1_OF_ABC);
+        assertTrue(ArtifactChecksums.verified(artifact).isEmpty());
+    }
+
+    @Test
+    void md5IsCheckedWithoutSha1(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Artifact artifact = artifactOf(directory, "abc");
+        sidecar(directory, ".md5", MD5_OF_ABC);
+        assertTrue(ArtifactChecksums.verified(artifact).isDefined());
+
+        Files.write(artifact.getFile().toPath(), "ab".getBytes(StandardCharsets.US_ASCII));
+        assertTrue(ArtifactChecksums.verified(artifact).isEmpty());
+    }
+
+    @Test
+    void filesWithoutChecksumsAreTakenAsTheyAre(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Artifact artifact = artifactOf(directory, "ab");
+        final Option<Artifact> verified = ArtifactChecksums.verified(artifact);
+        assertTrue(verified.isDefined());
+        assertNull(verified.get().getProperty(ArtifactChecksums.VERIFIED_SHA1_ARTIFACT_PROPERTY, null));
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryListener;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArtifactResolutionTimingTest {
+
+    private static RepositoryEvent event(
+            final RepositoryEvent.EventType type,
+            final String coordinates
+    ) {
+        return new RepositoryEvent.Builder(new DefaultRepositorySystemSession(), type)
+                .setArtifact(new DefaultArtifact(coordinates))
+                .build();
+    }
+
+    @Test
+    void resolutionIsTimedAndEventsArePassedOn() {
+        final List<RepositoryEvent.EventType> passedOn = new ArrayList<>();
+        final ArtifactResolutionTiming timing = new ArtifactResolutionTiming();
+        final RepositoryListener listener = timing.listener(new AbstractRepositoryListener() {
+            @Override
+            public void artifactResolving(final RepositoryEvent event) {
+                passedOn.add(event.getType());
+            }
+
+            @Override
+            public void artifactResolved(final RepositoryEvent event) {
+                passedOn.add(event.getType());
+            }
+        });
+
+        assertTrue(timing.elapsedMillis("g:a:1.0-SNAPSHOT").isEmpty());
+        listener.artifactResolving(event(RepositoryEvent.EventType.ARTIFACT_RESOLVING, "g:a:1.0-SNAPSHOT"));
+        assertTrue(timing.elapsedMillis("g:a:1.0-SNAPSHOT").isEmpty());
+        // Snapshots resolve to a timestamped version
+        listener.artifactResolved(event(RepositoryEvent.EventType.ARTIFACT_RESOLVED, "g:a:1.0-20200101.000000-1"));
+
+        assertTrue(timing.elapsedMillis("g:a:1.0-SNAPSHOT").isDefined());
+        assertEquals(
+                List.of(RepositoryEvent.EventType.ARTIFACT_RESOLVING, RepositoryEvent.EventType.ARTIFACT_RESOLVED),
+                passedOn
+        );
+    }
+
+    @Test
+    void withoutListenerToPassEventsOnTo() {
+        final ArtifactResolutionTiming timing = new ArtifactResolutionTiming();
+        final RepositoryListener listener = timing.listener(null);
+        listener.artifactResolving(event(RepositoryEvent.EventType.ARTIFACT_RESOLVING, "g:a:1.0"));
+        listener.metadataResolved(
+                new RepositoryEvent.Builder(new DefaultRepositorySystemSession(), RepositoryEvent.EventType.METADATA_RESOLVED).build()
+        );
+        listener.artifactResolved(event(RepositoryEvent.EventType.ARTIFACT_RESOLVED, "g:a:1.0"));
+        assertTrue(timing.elapsedMillis("g:a:1.0").isDefined());
+    }
+
+}
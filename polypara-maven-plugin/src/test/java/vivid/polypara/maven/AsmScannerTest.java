@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import vivid.polypara.annotation.Constant;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+import vivid.polypara.maven.testing.NoConstantsFixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsmScannerTest {
+
+    private static final String FIXTURE = ConstantsFixture.class.getName();
+
+    static final List<Tuple2<String, Object>> expectedFixtureFields =
+            List.of(
+                    new Tuple2<>(FIXTURE + ".INT", 42),
+                    new Tuple2<>(FIXTURE + ".LONG", 42L),
+                    new Tuple2<>(FIXTURE + ".FLOAT", 4.2f),
+                    new Tuple2<>(FIXTURE + ".DOUBLE", 4.2d),
+                    new Tuple2<>(FIXTURE + ".STRING", "forty-two"),
+                    new Tuple2<>(FIXTURE + ".withoutConstantValue", null)
+            );
+
+    static Either<Message, List<Tuple2<String, Object>>> scan(
+            final ClassReaderSource source
+    ) {
+        return AsmScanner.scan(
+                new AsmFieldAnnotationScanner(new TestingMojo(), Constant.class),
+                source
+        );
+    }
+
+    @Test
+    void jarFile(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOf(
+                directory.resolve("fixture.jar"),
+                false,
+                List.of(NoConstantsFixture.class, ConstantsFixture.class)
+        );
+        assertEquals(
+                Either.right(expectedFixtureFields),
+                scan(AsmClassReaders.fromJarFile(new TestingMojo(), jar))
+        );
+    }
+
+    @Test
+    void directory(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Path classFile = directory.resolve("vivid/polypara/maven/testing/ConstantsFixture.class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, Jars.classFileBytes(ConstantsFixture.class));
+        Files.write(directory.resolve("resource.txt"), "not a class".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("Bogus.class"), "not a class".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(
+                Either.right(expectedFixtureFields),
+                scan(AsmClassReaders.fromFile(new TestingMojo(), directory.toFile()))
+        );
+    }
+
+    @Test
+    void classesAreVisitedOneAtATime(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOf(
+                directory.resolve("fixture.jar"),
+                true,
+                List.of(NoConstantsFixture.class, ConstantsFixture.class)
+        );
+        final java.util.List<String> visited = new java.util.ArrayList<>();
+        assertEquals(
+                Either.right(2),
+                AsmClassReaders.fromJarFile(new TestingMojo(), jar).forEach(ClassFileVisitor.of(b -> true, c -> visited.add(c.getClassName())))
+        );
+        assertEquals(
+                java.util.Arrays.asList(
+                        "vivid/polypara/maven/testing/NoConstantsFixture",
+                        "vivid/polypara/maven/testing/ConstantsFixture"
+                ),
+                visited
+        );
+    }
+
+    @Test
+    void parallelScanMatchesSequentialScan(
+            @TempDir final Path directory
+    ) throws IOException {
+        final byte[] withConstants = Jars.classFileBytes(ConstantsFixture.class);
+        final byte[] withoutConstants = Jars.classFileBytes(NoConstantsFixture.class);
+        final File jar = Jars.jarOfEntries(
+                directory.resolve("many.jar"),
+                false,
+                List.range(0, 500).map(i -> new Tuple2<>(
+                        "c/C" + i + ".class",
+                        i % 3 == 0 ? withoutConstants : withConstants
+                ))
+        );
+        final Either<Message, List<Tuple2<String, Object>>> sequential = AsmScanner.scan(
+                () -> new AsmFieldAnnotationScanner(new TestingMojo(), Constant.class),
+                AsmClassReaders.fromJarFile(new TestingMojo(), jar),
+                ScanExecution.sequential()
+        );
+        try (final ScanExecution execution = ScanExecution.withThreads(4)) {
+            final Either<Message, List<Tuple2<String, Object>>> parallel = AsmScanner.scan(
+                    () -> new AsmFieldAnnotationScanner(new TestingMojo(), Constant.class),
+                    AsmClassReaders.fromJarFile(new TestingMojo(), jar),
+                    execution
+            );
+            assertEquals(333 * expectedFixtureFields.size(), sequential.get().size());
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    private static Either<Message, List<Tuple2<String, Object>>> scan(
+            final ClassReaderSource source,
+            final ScanExecution execution,
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles
+    ) {
+        return AsmScanner.scan(
+                () -> new AsmFieldAnnotationScanner(new TestingMojo(), Constant.class),
+                source,
+                execution,
+                Option.some(scannedClassFiles)
+        );
+    }
+
+    @Test
+    void identicalClassFilesAreScannedOnce(
+            @TempDir final Path directory
+    ) throws IOException {
+        final List<Class<?>> classes = List.of(NoConstantsFixture.class, ConstantsFixture.class);
+        final File first = Jars.jarOf(directory.resolve("first.jar"), false, classes);
+        final File second = Jars.jarOf(directory.resolve("second.jar"), true, classes);
+        final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles = new ScannedClassFiles<>();
+
+        assertEquals(
+                Either.right(expectedFixtureFields),
+                scan(AsmClassReaders.fromJarFile(new TestingMojo(), first), ScanExecution.sequential(), scannedClassFiles)
+        );
+        assertEquals(0, scannedClassFiles.reused());
+        assertEquals(2, scannedClassFiles.size());
+
+        final java.util.List<String> visited = new java.util.ArrayList<>();
+        final ClassReaderSource secondSource = visitor ->
+                AsmClassReaders.fromJarFile(new TestingMojo(), second).forEach(new ClassFileVisitor() {
+                    @Override
+                    public boolean identifiesClassFiles() {
+                        return visitor.identifiesClassFiles();
+                    }
+
+                    @Override
+                    public boolean isUnscanned(final String name, final int crc, final long size) {
+                        return visitor.isUnscanned(name, crc, size);
+                    }
+
+                    @Override
+                    public boolean isCandidate(final ByteBuffer classFile) {
+                        return visitor.isCandidate(classFile);
+                    }
+
+                    @Override
+                    public void visitClass(final ClassReader classReader) {
+                        visited.add(classReader.getClassName());
+                        visitor.visitClass(classReader);
+                    }
+                });
+        assertEquals(
+                Either.right(expectedFixtureFields),
+                scan(secondSource, ScanExecution.sequential(), scannedClassFiles)
+        );
+        assertEquals(2, scannedClassFiles.reused());
+        assertTrue(visited.isEmpty());
+    }
+
+    @Test
+    void changedClassFileIsScannedAgain(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File before = Jars.jarOfEntries(
+                directory.resolve("before.jar"),
+                false,
+                List.of(new Tuple2<>("c/C.class", Jars.classFileBytes(ConstantsFixture.class)))
+        );
+        final File after = Jars.jarOfEntries(
+                directory.resolve("after.jar"),
+                false,
+                List.of(new Tuple2<>("c/C.class", Jars.classFileBytes(NoConstantsFixture.class)))
+        );
+        final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles = new ScannedClassFiles<>();
+
+        assertEquals(
+                Either.right(expectedFixtureFields),
+                scan(AsmClassReaders.fromJarFile(new TestingMojo(), before), ScanExecution.sequential(), scannedClassFiles)
+        );
+        assertEquals(
+                Either.right(List.empty()),
+                scan(AsmClassReaders.fromJarFile(new TestingMojo(), after), ScanExecution.sequential(), scannedClassFiles)
+        );
+        assertEquals(0, scannedClassFiles.reused());
+    }
+
+    @Test
+    void parallelScanReusesScannedClassFilesInReadOrder(
+            @TempDir final Path directory
+    ) throws IOException {
+        final byte[] withConstants = Jars.classFileBytes(ConstantsFixture.class);
+        final byte[] withoutConstants = Jars.classFileBytes(NoConstantsFixture.class);
+        final File older = Jars.jarOfEntries(
+                directory.resolve("older.jar"),
+                false,
+                List.range(0, 300).map(i -> new Tuple2<>("c/C" + i + ".class", withConstants))
+        );
+        // Every fifth class changed, or new
+        final File newer = Jars.jarOfEntries(
+                directory.resolve("newer.jar"),
+                false,
+                List.range(0, 500).map(i -> new Tuple2<>(
+                        "c/C" + i + ".class",
+                        i % 5 == 0 ? withoutConstants : withConstants
+                ))
+        );
+        final Either<Message, List<Tuple2<String, Object>>> sequential = AsmScanner.scan(
+                () -> new AsmFieldAnnotationScanner(new TestingMojo(), Constant.class),
+                AsmClassReaders.fromJarFile(new TestingMojo(), newer),
+                ScanExecution.sequential()
+        );
+        try (final ScanExecution execution = ScanExecution.withThreads(4)) {
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles = new ScannedClassFiles<>();
+            scan(AsmClassReaders.fromJarFile(new TestingMojo(), older), execution, scannedClassFiles);
+            final Either<Message, List<Tuple2<String, Object>>> parallel =
+                    scan(AsmClassReaders.fromJarFile(new TestingMojo(), newer), execution, scannedClassFiles);
+            assertEquals(240, scannedClassFiles.reused());
+            assertEquals(400 * expectedFixtureFields.size(), sequential.get().size());
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    void unreadableJarFile(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Path notAJar = Files.write(directory.resolve("broken.jar"), new byte[] {1, 2, 3});
+        assertTrue(scan(AsmClassReaders.fromJarFile(new TestingMojo(), notAJar.toFile())).isLeft());
+    }
+
+}
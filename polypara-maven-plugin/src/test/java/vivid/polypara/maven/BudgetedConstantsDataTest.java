@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BudgetedConstantsDataTest {
+
+    private static final List<String> VERSIONS = List.of("1.0", "1.1", "1.2");
+
+    private static final List<Tuple2<String, Object>> FIELDS = List.range(0, 100)
+            .map(f -> new Tuple2<>("a.A.F" + f, f));
+
+    private static final long FOOTPRINT =
+            BudgetedConstantsData.ESTIMATED_BYTES_PER_FIELD_AND_VERSION * FIELDS.size() * VERSIONS.size();
+
+    private static List<ConstancyViolation> verify(
+            final BudgetedConstantsData constantsData
+    ) {
+        constantsData.recordConstantFields("1.0", List.empty());
+        constantsData.recordConstantFields("1.1", FIELDS);
+        constantsData.recordConstantFields("1.2", FIELDS.update(7, new Tuple2<>("a.A.F7", -7)));
+        assertEquals(FIELDS.size(), constantsData.constantFieldsCount());
+        return constantsData.constancyViolationDescriptions();
+    }
+
+    @Test
+    void withinBudgetIsHeldInMemory() throws IOException {
+        final TestingMojo mojo = new TestingMojo();
+        try (
+                final BudgetedConstantsData constantsData = new BudgetedConstantsData(
+                        mojo, VERSIONS, FOOTPRINT, () -> new ConstantsMemoryImpl(mojo, VERSIONS))
+        ) {
+            final List<ConstancyViolation> violations = verify(constantsData);
+            assertFalse(constantsData.spills());
+            assertEquals(List.of("a.A.F7"), violations.map(v -> v.fieldName));
+        }
+    }
+
+    @Test
+    void beyondBudgetIsSpilledToDisk() throws IOException {
+        final TestingMojo mojo = new TestingMojo();
+        try (
+                final BudgetedConstantsData constantsData = new BudgetedConstantsData(
+                        mojo, VERSIONS, FOOTPRINT - 1, () -> new ConstantsMemoryImpl(mojo, VERSIONS))
+        ) {
+            final List<ConstancyViolation> violations = verify(constantsData);
+            assertTrue(constantsData.spills());
+            assertEquals(List.of("a.A.F7"), violations.map(v -> v.fieldName));
+            assertEquals(
+                    List.of("1.1", "1.2"),
+                    violations.get(0).fieldValueByVersionRange.map(r -> r._1.start)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassFileBuffersTest {
+
+    @Test
+    void closedBuffersAreReused() {
+        try (final ScanExecution execution = ScanExecution.sequential()) {
+            final ClassFileBuffers buffers = execution.classFileBuffers();
+            buffers.close();
+            try (final ClassFileBuffers reacquired = execution.classFileBuffers()) {
+                assertSame(buffers, reacquired);
+            }
+        }
+    }
+
+    @Test
+    void closingTheExecutionEmptiesThePool() {
+        final ScanExecution execution = ScanExecution.sequential();
+        final ClassFileBuffers buffers = execution.classFileBuffers();
+        buffers.close();
+        execution.close();
+        try (final ClassFileBuffers reacquired = execution.classFileBuffers()) {
+            assertNotSame(buffers, reacquired);
+        }
+    }
+
+    @Test
+    void buffersReturnToThePoolTheyCameFrom() {
+        final ArrayBlockingQueue<ClassFileBuffers> pool = new ArrayBlockingQueue<>(1);
+        final ClassFileBuffers buffers = ClassFileBuffers.acquire(pool);
+        assertTrue(pool.isEmpty());
+        buffers.close();
+        assertEquals(1, pool.size());
+        ClassFileBuffers.release(pool);
+        assertTrue(pool.isEmpty());
+    }
+
+    @Test
+    void outputGrowsRetainingContents() {
+        try (final ClassFileBuffers buffers = ClassFileBuffers.unpooled()) {
+            final byte[] output = buffers.output(1);
+            output[0] = 42;
+            final byte[] grown = buffers.output(output.length + 1);
+            assertTrue(grown.length > output.length);
+            assertEquals(42, grown[0]);
+            assertSame(grown, buffers.output(grown.length));
+        }
+    }
+
+    @Test
+    void outputView() {
+        try (final ClassFileBuffers buffers = ClassFileBuffers.unpooled()) {
+            final byte[] output = buffers.output(3);
+            output[2] = 7;
+            final ByteBuffer view = buffers.outputView(3);
+            assertEquals(0, view.position());
+            assertEquals(3, view.remaining());
+            assertEquals(7, view.get(2));
+            assertEquals(1, buffers.outputView(1).remaining());
+        }
+    }
+
+}
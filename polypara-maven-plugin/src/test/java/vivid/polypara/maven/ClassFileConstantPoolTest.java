@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+import vivid.polypara.annotation.Constant;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+import vivid.polypara.maven.testing.NoConstantsFixture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassFileConstantPoolTest {
+
+    private static final byte[] constantDescriptor =
+            Type.getDescriptor(Constant.class).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void annotatedClassContainsDescriptor() throws IOException {
+        final byte[] classFile = Jars.classFileBytes(ConstantsFixture.class);
+        assertTrue(ClassFileConstantPool.containsUtf8(ByteBuffer.wrap(classFile), constantDescriptor));
+    }
+
+    @Test
+    void unannotatedClassLacksDescriptor() throws IOException {
+        // The fixture holds a string constant that is a prefix of the descriptor
+        final byte[] classFile = Jars.classFileBytes(NoConstantsFixture.class);
+        assertFalse(ClassFileConstantPool.containsUtf8(ByteBuffer.wrap(classFile), constantDescriptor));
+    }
+
+    @Test
+    void classFileAtNonZeroPosition() throws IOException {
+        final byte[] classFile = Jars.classFileBytes(NoConstantsFixture.class);
+        final byte[] padded = new byte[classFile.length + 7];
+        System.arraycopy(classFile, 0, padded, 7, classFile.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(padded, 7, classFile.length);
+        assertFalse(ClassFileConstantPool.containsUtf8(buffer, constantDescriptor));
+        assertEquals(7, buffer.position());
+    }
+
+    @Test
+    void truncatedClassFileIsLeftToFullParse() throws IOException {
+        final byte[] classFile = Jars.classFileBytes(NoConstantsFixture.class);
+        assertTrue(ClassFileConstantPool.containsUtf8(ByteBuffer.wrap(classFile, 0, classFile.length / 2), constantDescriptor));
+        assertTrue(ClassFileConstantPool.containsUtf8(ByteBuffer.wrap(new byte[4]), constantDescriptor));
+    }
+
+    @Test
+    void unknownConstantPoolTagIsLeftToFullParse() throws IOException {
+        final byte[] classFile = Jars.classFileBytes(NoConstantsFixture.class);
+        final byte[] corrupted = Arrays.copyOf(classFile, classFile.length);
+        corrupted[10] = (byte) 0x7F;    // Tag of the first constant pool entry
+        assertTrue(ClassFileConstantPool.containsUtf8(ByteBuffer.wrap(corrupted), constantDescriptor));
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.kernel.impl.factory.GraphDatabaseFacade;
+import vivid.polypara.annotation.Constant;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated per Jar entry by the class file read path, once it has warmed up.
+ * Classes that can't bear {@code Constant} fields should cost next to nothing; classes
+ * that do are copied and parsed, and their matched fields recorded.
+ *
+ * Relies on the HotSpot extension of {@code ThreadMXBean} for per-thread allocation
+ * counts. Benchmarks are excluded from the regular test run. Run them explicitly with:
+ * <pre>
+ *     mvn test -Dtest='*Benchmark' -DfailIfNoTests=false
+ * </pre>
+ */
+public class ClassReadAllocationBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 10;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static int entryCount(
+            final File jar
+    ) throws IOException {
+        int count = 0;
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar).get()) {
+            for (final Iterator<MappedJarFile.Entry> i = jarFile.entries(); i.hasNext(); i.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long allocatedBytesOfScan(
+            final File jar
+    ) {
+        final TestingMojo mojo = new TestingMojo();
+        final ClassReaderSource source = AsmClassReaders.fromJarFile(mojo, jar);
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            AsmScanner.scan(new AsmFieldAnnotationScanner(mojo, Constant.class), source).get();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        AsmScanner.scan(new AsmFieldAnnotationScanner(mojo, Constant.class), source).get();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static void report(
+            final String description,
+            final File jar
+    ) throws IOException {
+        final int entries = entryCount(jar);
+        final long bytes = allocatedBytesOfScan(jar);
+        System.out.printf(
+                "%s, %d entries:  %d bytes allocated per scan,  %.1f bytes per entry%n",
+                description,
+                entries,
+                bytes,
+                (double) bytes / entries
+        );
+    }
+
+    @Test
+    void classesWithoutConstants() throws IOException, URISyntaxException {
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        report(
+                "neo4j-kernel, no @Constant fields",
+                new File(GraphDatabaseFacade.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+        );
+    }
+
+    @Test
+    void classesWithConstants(
+            @TempDir final Path directory
+    ) throws IOException {
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        report(
+                "1000 classes of 6 @Constant fields each",
+                Jars.jarOfEntries(
+                        directory.resolve("constants.jar"),
+                        false,
+                        List.range(0, 1_000).map(i -> new io.vavr.Tuple2<>(
+                                "fixture/Constants" + i + ".class",
+                                classFileBytesOfConstantsFixture()
+                        ))
+                )
+        );
+    }
+
+    private static byte[] classFileBytesOfConstantsFixture() {
+        try {
+            return Jars.classFileBytes(ConstantsFixture.class);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.neo4j.kernel.impl.factory.GraphDatabaseFacade;
+import vivid.polypara.annotation.Constant;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of reading a large, real-world Jar file, and of scanning it for
+ * {@code Constant} fields both parsing every class in full and with the constant pool
+ * prefilter and field-only visit.
+ *
+ * Benchmarks are excluded from the regular test run. Run them explicitly with:
+ * <pre>
+ *     mvn test -Dtest='*Benchmark' -DfailIfNoTests=false
+ * </pre>
+ */
+public class ClassScanningBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * Parses every class in full, as scans did before the prefilter was introduced.
+     */
+    private static class FullParse extends AsmFieldAnnotationScanner {
+
+        FullParse(final Mojo mojo) {
+            super(mojo, Constant.class);
+        }
+
+        @Override
+        boolean isCandidate(final ByteBuffer classFile) {
+            return true;
+        }
+
+        @Override
+        int parsingOptions() {
+            return 0;
+        }
+
+    }
+
+    private static long runMillis(
+            final AsmClassVisitorAdapter<List<Tuple2<String, Object>>> adapter,
+            final File jar
+    ) {
+        final long start = System.nanoTime();
+        final int classCount = AsmScanner.scan(adapter, AsmClassReaders.fromJarFile(new TestingMojo(), jar))
+                .get()
+                .size();
+        assertEquals(0, classCount);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static File largeJar() throws URISyntaxException {
+        return new File(
+                GraphDatabaseFacade.class.getProtectionDomain().getCodeSource().getLocation().toURI()
+        );
+    }
+
+    /**
+     * Reads every class file through {@code JarFile}, as scans did before {@code MappedJarFile}.
+     */
+    private static long readWithJarFileMillis(
+            final File jar
+    ) throws IOException {
+        final long start = System.nanoTime();
+        long bytes = 0;
+        try (final JarFile jarFile = new JarFile(jar)) {
+            for (final JarEntry entry : Collections.list(jarFile.entries())) {
+                if (entry.getName().endsWith(".class")) {
+                    try (final InputStream in = jarFile.getInputStream(entry)) {
+                        bytes += IOUtils.toByteArray(in).length;
+                    }
+                }
+            }
+        }
+        assertTrue(bytes > 0);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static long readWithMappedJarFileMillis(
+            final File jar
+    ) throws IOException {
+        final long start = System.nanoTime();
+        long bytes = 0;
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar).get()) {
+            final Iterator<MappedJarFile.Entry> entries = jarFile.entries();
+            while (entries.hasNext()) {
+                final MappedJarFile.Entry entry = entries.next();
+                if (jarFile.isJavaClassFile(entry)) {
+                    bytes += jarFile.contents(entry).remaining();
+                }
+            }
+        }
+        assertTrue(bytes > 0);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    void readJar() throws IOException, URISyntaxException {
+        final File jar = largeJar();
+
+        long jarFile = Long.MAX_VALUE;
+        long mappedJarFile = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            jarFile = Math.min(jarFile, readWithJarFileMillis(jar));
+            mappedJarFile = Math.min(mappedJarFile, readWithMappedJarFileMillis(jar));
+        }
+
+        System.out.printf(
+                "%s (%d KiB), best of %d:  JarFile %d ms,  MappedJarFile %d ms%n",
+                jar.getName(),
+                jar.length() / 1024,
+                ROUNDS,
+                jarFile,
+                mappedJarFile
+        );
+    }
+
+    private static long scanMillis(
+            final File jar,
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles
+    ) {
+        final TestingMojo mojo = new TestingMojo();
+        final long start = System.nanoTime();
+        AsmScanner.scan(
+                () -> new AsmFieldAnnotationScanner(mojo, Constant.class),
+                AsmClassReaders.fromJarFile(mojo, jar),
+                ScanExecution.sequential(),
+                Option.some(scannedClassFiles)
+        ).get();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Scanning a version whose class files are identical to those of a version already
+     * scanned in the same build.
+     */
+    @Test
+    void rescanIdenticalJar() throws URISyntaxException {
+        final File jar = largeJar();
+
+        long firstScan = Long.MAX_VALUE;
+        long rescan = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final ScannedClassFiles<Tuple2<String, Object>> scannedClassFiles = new ScannedClassFiles<>();
+            firstScan = Math.min(firstScan, scanMillis(jar, scannedClassFiles));
+            rescan = Math.min(rescan, scanMillis(jar, scannedClassFiles));
+        }
+
+        System.out.printf(
+                "%s (%d KiB), best of %d:  first scan %d ms,  rescan of identical classes %d ms%n",
+                jar.getName(),
+                jar.length() / 1024,
+                ROUNDS,
+                firstScan,
+                rescan
+        );
+    }
+
+    @Test
+    void scanJar() throws URISyntaxException {
+        final File jar = largeJar();
+        final TestingMojo mojo = new TestingMojo();
+
+        long fullParse = Long.MAX_VALUE;
+        long prefiltered = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            fullParse = Math.min(fullParse, runMillis(new FullParse(mojo), jar));
+            prefiltered = Math.min(prefiltered, runMillis(new AsmFieldAnnotationScanner(mojo, Constant.class), jar));
+        }
+
+        System.out.printf(
+                "%s (%d KiB), best of %d:  full parse %d ms,  prefiltered field-only %d ms%n",
+                jar.getName(),
+                jar.length() / 1024,
+                ROUNDS,
+                fullParse,
+                prefiltered
+        );
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConstancyDetectorTest {
+
+    private static final List<String> VERSIONS = List.of("1.0", "1.1", "1.2", "2.0", "2.1");
+
+    private static Tuple2<String, Object> field(
+            final String fqn,
+            final Object value
+    ) {
+        return new Tuple2<>(fqn, value);
+    }
+
+    @Test
+    void constantFieldsAreNotViolations() {
+        final ConstancyDetector detector = new ConstancyDetector(VERSIONS);
+        for (final String version : VERSIONS.reverse()) {
+            assertEquals(List.empty(), detector.record(version, List.of(field("a.A.F", 1), field("a.A.G", "g"))));
+        }
+        assertEquals(Option.none(), detector.firstViolation());
+    }
+
+    @Test
+    void changedValueIsConfirmedByTheSecondValue() {
+        final ConstancyDetector detector = new ConstancyDetector(VERSIONS);
+        assertEquals(List.empty(), detector.record("2.1", List.of(field("a.A.F", 2), field("a.A.G", "g"))));
+        assertEquals(List.of("a.A.F"), detector.record("1.0", List.of(field("a.A.F", 1), field("a.A.G", "g"))));
+        assertEquals(Option.of("a.A.F"), detector.firstViolation());
+
+        // Each violation is confirmed once
+        assertEquals(List.empty(), detector.record("1.1", List.of(field("a.A.F", 3), field("a.A.G", "g"))));
+        assertEquals(Option.of("a.A.F"), detector.firstViolation());
+    }
+
+    @Test
+    void absenceBetweenRecordedPresencesIsConfirmed() {
+        // Recorded absence, then presence on both sides
+        final ConstancyDetector later = new ConstancyDetector(VERSIONS);
+        assertEquals(List.empty(), later.record("1.2", List.empty()));
+        assertEquals(List.empty(), later.record("2.1", List.of(field("a.A.F", 1))));
+        assertEquals(List.of("a.A.F"), later.record("1.0", List.of(field("a.A.F", 1))));
+
+        // Presence on both sides, then recorded absence
+        final ConstancyDetector earlier = new ConstancyDetector(VERSIONS);
+        assertEquals(List.empty(), earlier.record("2.1", List.of(field("a.A.F", 1))));
+        assertEquals(List.empty(), earlier.record("1.0", List.of(field("a.A.F", 1))));
+        assertEquals(List.of("a.A.F"), earlier.record("1.2", List.of(field("a.A.G", 1))));
+    }
+
+    @Test
+    void absenceBeforeOrAfterPresenceIsNoViolation() {
+        final ConstancyDetector detector = new ConstancyDetector(VERSIONS);
+        assertEquals(List.empty(), detector.record("2.1", List.empty()));
+        assertEquals(List.empty(), detector.record("1.1", List.of(field("a.A.F", 1))));
+        assertEquals(List.empty(), detector.record("1.0", List.empty()));
+        assertEquals(List.empty(), detector.record("1.2", List.of(field("a.A.F", 1))));
+        // Versions not yet recorded aren't presumed absent
+        assertEquals(List.empty(), detector.record("2.0", List.of(field("a.A.F", 1))));
+        assertEquals(Option.none(), detector.firstViolation());
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConstantTableCacheTest {
+
+    private static final String SHA1 = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
+
+    private static final List<Tuple2<String, Object>> fields =
+            List.of(
+                    new Tuple2<>("a.A.INT", 1),
+                    new Tuple2<>("a.A.LONG", 2L),
+                    new Tuple2<>("a.A.FLOAT", 3.5f),
+                    new Tuple2<>("a.A.DOUBLE", 4.25d),
+                    new Tuple2<>("a.A.STRING", "five"),
+                    new Tuple2<>("a.A.NULL", null)
+            );
+
+    @Test
+    void sha1OfEmptyFile(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File file = Files.createFile(directory.resolve("empty.jar")).toFile();
+        assertEquals(SHA1, ConstantTableCache.sha1(file));
+    }
+
+    @Test
+    void sha1FromSidecar(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File file = Files.createFile(directory.resolve("a.jar")).toFile();
+        final Path sidecar = directory.resolve("a.jar.sha1");
+        final String other = "0123456789ABCDEF0123456789abcdef01234567";
+        Files.write(sidecar, (other + "  a.jar\n").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(other.toLowerCase(Locale.ROOT), ConstantTableCache.sha1(file));
+
+        // Replaced since the sidecar was written
+        Files.setLastModifiedTime(sidecar, FileTime.fromMillis(Files.getLastModifiedTime(file.toPath()).toMillis() - 10_000));
+        assertEquals(SHA1, ConstantTableCache.sha1(file));
+
+        Files.write(sidecar, "not a checksum".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(SHA1, ConstantTableCache.sha1(file));
+    }
+
+    @Test
+    void keyOfArtifact(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File file = Files.createFile(directory.resolve("a.jar")).toFile();
+        assertEquals(SHA1, ConstantTableCache.keyOf(new DefaultArtifact("g:a:1.0").setFile(file)));
+        assertEquals(SHA1, ConstantTableCache.keyOf(new DefaultArtifact("g:a:1.0-SNAPSHOT").setFile(file)));
+        assertEquals(
+                "g_a_1.0-20200317.101010-3",
+                ConstantTableCache.keyOf(new DefaultArtifact("g:a:1.0-20200317.101010-3").setFile(file))
+        );
+    }
+
+    @Test
+    void roundTrip(
+            @TempDir final Path directory
+    ) {
+        final ConstantTableCache cache = new ConstantTableCache(new TestingMojo(), directory, Long.MAX_VALUE);
+        assertTrue(cache.get("g:a:1", SHA1).isEmpty());
+
+        cache.put("g:a:1", SHA1, fields);
+        assertEquals(Option.of(fields), cache.get("g:a:1", SHA1));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void entryOfAnotherFormatIsAMiss(
+            @TempDir final Path directory
+    ) throws IOException {
+        Files.write(directory.resolve(SHA1 + ".constants"), "not a cache entry".getBytes(StandardCharsets.UTF_8));
+        final ConstantTableCache cache = new ConstantTableCache(new TestingMojo(), directory, Long.MAX_VALUE);
+        assertTrue(cache.get("g:a:1", SHA1).isEmpty());
+
+        cache.put("g:a:1", SHA1, fields);
+        assertEquals(Option.of(fields), cache.get("g:a:1", SHA1));
+    }
+
+    @Test
+    void failedWritesLeaveNoTemporaryFiles(
+            @TempDir final Path directory
+    ) throws IOException {
+        // A non-empty directory in place of the entry can't be replaced
+        Files.createDirectories(directory.resolve(SHA1 + ".constants").resolve("occupied"));
+        final ConstantTableCache cache = new ConstantTableCache(new TestingMojo(), directory, Long.MAX_VALUE);
+        cache.put("g:a:1", SHA1, fields);
+
+        try (final Stream<Path> paths = Files.list(directory)) {
+            assertEquals(
+                    Collections.singletonList(directory.resolve(SHA1 + ".constants")),
+                    paths.collect(Collectors.toList())
+            );
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted(
+            @TempDir final Path directory
+    ) throws IOException {
+        final ConstantTableCache unbounded = new ConstantTableCache(new TestingMojo(), directory, Long.MAX_VALUE);
+        unbounded.put("g:a:1", "1111", fields);
+        final long entrySize = Files.size(directory.resolve("1111.constants"));
+
+        final ConstantTableCache cache = new ConstantTableCache(new TestingMojo(), directory, 2 * entrySize);
+        cache.put("g:a:2", "2222", fields);
+        Files.setLastModifiedTime(directory.resolve("1111.constants"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(directory.resolve("2222.constants"), FileTime.fromMillis(2000));
+        cache.put("g:a:3", "3333", fields);
+
+        assertTrue(cache.get("g:a:1", "1111").isEmpty());
+        assertTrue(cache.get("g:a:2", "2222").isDefined());
+        assertTrue(cache.get("g:a:3", "3333").isDefined());
+    }
+
+}
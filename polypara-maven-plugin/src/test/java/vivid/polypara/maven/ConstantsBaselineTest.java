@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import vivid.junit5.params.provider.StreamableStaticFieldSource;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConstantsBaselineTest {
+
+    public static final List<Arguments> values =
+            List.of(
+                    Arguments.of((Object) null),
+                    Arguments.of(-1),
+                    Arguments.of(Long.MIN_VALUE),
+                    Arguments.of(Float.NaN),
+                    Arguments.of(0.1f),
+                    Arguments.of(-0.0d),
+                    Arguments.of(Double.POSITIVE_INFINITY),
+                    Arguments.of(""),
+                    Arguments.of("two words"),
+                    Arguments.of("trailing space "),
+                    Arguments.of("back\\slash \\u0041 tab\tnew\nline é€")
+            );
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("values")
+    void valueTextRoundTrip(
+            final Object value
+    ) throws IOException {
+        final String text = ConstantValues.toText(value);
+        assertTrue(text.indexOf('\n') < 0 && !text.endsWith(" "), text);
+        assertEquals(value, ConstantValues.fromText(text));
+    }
+
+    private static final String BASELINE =
+            "# A comment\n" +
+            "polypara-baseline 1\n" +
+            "versions 1.0 1.1 1.2 1.10\n" +
+            "a.A.ADDED 1.10 I1\n" +
+            "a.A.CHANGED 1.0~1.1 Sone two\n" +
+            "a.A.CHANGED 1.2~1.10 Sthree\n" +
+            "a.A.REMOVED 1.0 N\n" +
+            "a.A.REMOVED 1.2 N\n";
+
+    @Test
+    void writeThenRead(
+            @TempDir final Path directory
+    ) throws IOException {
+        final ConstantsBaseline baseline = ConstantsBaseline.empty()
+                .with("1.10", List.of(new Tuple2<>("a.A.CHANGED", "three"), new Tuple2<>("a.A.ADDED", 1)))
+                .with("1.0", List.of(new Tuple2<>("a.A.REMOVED", null), new Tuple2<>("a.A.CHANGED", "one two")))
+                .with("1.2", List.of(new Tuple2<>("a.A.CHANGED", "three"), new Tuple2<>("a.A.REMOVED", null)))
+                .with("1.1", List.of(new Tuple2<>("a.A.CHANGED", "one two")));
+        final File file = directory.resolve("baseline.txt").toFile();
+        baseline.write(file, "A comment");
+
+        assertEquals(BASELINE, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)
+                .replace(System.lineSeparator(), "\n"));
+
+        final ConstantsBaseline read = ConstantsBaseline.read(new TestingMojo(), file).get();
+        assertEquals(List.of("1.0", "1.1", "1.2", "1.10"), read.versions());
+        for (final String version : read.versions()) {
+            assertEquals(
+                    baseline.fieldsOf(version).sortBy(Tuple2::_1),
+                    read.fieldsOf(version).sortBy(Tuple2::_1)
+            );
+        }
+    }
+
+    @Test
+    void unreadableBaseline(
+            @TempDir final Path directory
+    ) throws IOException {
+        final TestingMojo mojo = new TestingMojo();
+        final Path file = directory.resolve("baseline.txt");
+
+        final Either<Message, ConstantsBaseline> missing = ConstantsBaseline.read(mojo, file.toFile());
+        assertTrue(missing.getLeft().render(mojo).startsWith("VPE-6:"));
+
+        Files.write(file, BASELINE.replace("1.2~1.10", "1.2~2.0").getBytes(StandardCharsets.UTF_8));
+        final Either<Message, ConstantsBaseline> unknownVersion = ConstantsBaseline.read(mojo, file.toFile());
+        assertTrue(unknownVersion.getLeft().render(mojo).startsWith("VPE-6:"));
+
+        Files.write(file, BASELINE.replace("baseline 1", "baseline 0").getBytes(StandardCharsets.UTF_8));
+        final Either<Message, ConstantsBaseline> otherFormat = ConstantsBaseline.read(mojo, file.toFile());
+        assertTrue(otherFormat.getLeft().render(mojo).startsWith("VPE-6:"));
+    }
+
+    @Test
+    void verificationAgainstTheBaselineResolvesNothing(
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(
+                directory.resolve("repository"),
+                1,
+                ScanExecution.sequential()
+        );
+        final Path classes = directory.resolve("classes");
+        final Path classFile = classes.resolve(ConstantsFixture.class.getName().replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, Jars.classFileBytes(ConstantsFixture.class));
+        mojo.getMavenProject().getBuild().setOutputDirectory(classes.toString());
+
+        final ConstantsBaseline baseline = ConstantsBaseline.empty()
+                .with("0.1", List.of(new Tuple2<>(ConstantsFixture.class.getName() + ".INT", 41)));
+        final File file = directory.resolve("baseline.txt").toFile();
+        baseline.write(file, "A comment");
+        final ConstantsBaseline read = ConstantsBaseline.read(mojo, file).get();
+
+        final List<String> versions = read.versions().append(mojo.getMavenProject().getVersion());
+        try (final ConstantsData constantsData = new ConstantsMemoryImpl(mojo, versions)) {
+            constantsData.recordConstantFields("0.1", read.fieldsOf("0.1"));
+            assertEquals(Either.right(1), VerificationPipeline.run(mojo, List.empty(), constantsData));
+            assertEquals(
+                    List.of(ConstantsFixture.class.getName() + ".INT"),
+                    constantsData.constancyViolationDescriptions().map(v -> v.fieldName)
+            );
+        }
+        assertEquals(0, mojo.resolved.get());
+    }
+
+}
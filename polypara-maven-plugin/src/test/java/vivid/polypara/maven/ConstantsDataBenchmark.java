@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock comparison of the {@code ConstantsData} implementations over a synthetic
+ * field &times; version matrix, covering the complete life cycle of each data store.
+ *
+ * Benchmarks are excluded from the regular test run. Run them explicitly with:
+ * <pre>
+ *     mvn test -Dtest='*Benchmark' -DfailIfNoTests=false
+ * </pre>
+ */
+public class ConstantsDataBenchmark {
+
+    private static final int FIELDS = 2_000;
+    private static final int VERSIONS = 10;
+
+    private static final List<String> versions = List.range(0, VERSIONS).map(v -> "1." + v);
+
+    private static final List<Tuple2<String, Object>> fields = List.range(0, FIELDS)
+            .map(f -> new Tuple2<>("bench.Constants.FIELD_" + f, f % 100 == 0 ? "changing" : "constant"));
+
+    private static long runMillis(
+            final ConstantsDataTest.ConstantsDataFactory factory
+    ) throws IOException {
+        final long start = System.nanoTime();
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), versions)) {
+            versions.zipWithIndex().forEach(v -> constantsData.recordConstantFields(
+                    v._1,
+                    fields.map(f -> "changing".equals(f._2) ? new Tuple2<>(f._1, v._2) : f)
+            ));
+            constantsData.constantFieldsCount();
+            constantsData.constancyViolationDescriptions();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    void lifeCycle() throws IOException {
+        // Warm up class loading and JIT compilation of the shared code paths
+        runMillis(ConstantsMemoryImpl::new);
+
+        System.out.printf(
+                "%d fields x %d versions:  MEMORY %d ms,  OFF_HEAP %d ms,  SPILL %d ms,  GRAPH %d ms%n",
+                FIELDS,
+                VERSIONS,
+                runMillis(ConstantsMemoryImpl::new),
+                runMillis((mojo, versions) -> new ConstantsMemoryImpl(
+                        mojo,
+                        versions,
+                        new OffHeapValueColumns(mojo, versions.size(), false)
+                )),
+                runMillis(ConstantsSpillImpl::new),
+                runMillis(ConstantsGraphImpl::new)
+        );
+    }
+
+    private static final int VIOLATION_FIELDS = 50_000;
+    private static final int VIOLATION_VERSIONS = 300;
+
+    private static long violationsMillis(
+            final ConstantsData constantsData
+    ) {
+        final long start = System.nanoTime();
+        constantsData.constancyViolationDescriptions();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Computation of the violations alone, by the {@code MEMORY} data store, sequentially
+     * and across all available cores. One in a hundred fields changes its value twice, and
+     * one in a thousand is absent from a hundred versions in the middle.
+     */
+    @Test
+    void violationComputation() throws IOException {
+        final List<String> manyVersions = List.range(0, VIOLATION_VERSIONS).map(v -> "1." + v);
+        try (
+                final ScanExecution execution = ScanExecution.withThreads(0);
+                final ConstantsData constantsData = new ConstantsMemoryImpl(new TestingMojo() {
+                    @Override
+                    public ScanExecution getScanExecution() {
+                        return execution;
+                    }
+                }, manyVersions);
+                final ConstantsData sequential = new ConstantsMemoryImpl(new TestingMojo(), manyVersions)
+        ) {
+            for (int v = 0; v < VIOLATION_VERSIONS; v++) {
+                final int version = v;
+                final List<Tuple2<String, Object>> versionFields = List.range(0, VIOLATION_FIELDS)
+                        .filter(f -> f % 1_000 != 1 || version < 100 || version >= 200)
+                        .map(f -> new Tuple2<>(
+                                "bench.Constants.FIELD_" + f,
+                                f % 100 == 0 ? version / 100 : f
+                        ));
+                constantsData.recordConstantFields(manyVersions.get(v), versionFields);
+                sequential.recordConstantFields(manyVersions.get(v), versionFields);
+            }
+
+            // Warm up JIT compilation
+            violationsMillis(sequential);
+            violationsMillis(constantsData);
+
+            System.out.printf(
+                    "Violations of %d fields x %d versions:  sequential %d ms,  %d threads %d ms%n",
+                    VIOLATION_FIELDS,
+                    VIOLATION_VERSIONS,
+                    violationsMillis(sequential),
+                    execution.parallelism(),
+                    violationsMillis(constantsData)
+            );
+        }
+    }
+
+}
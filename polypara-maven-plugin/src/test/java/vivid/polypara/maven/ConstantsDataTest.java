@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import vivid.junit5.params.provider.StreamableStaticFieldSource;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConstantsDataTest {
+
+    @FunctionalInterface
+    interface ConstantsDataFactory {
+        ConstantsData create(Mojo mojo, List<String> versions) throws IOException;
+    }
+
+    private static final List<String> VERSIONS = List.of("1.0", "1.1", "2.0", "2.1");
+
+    public static final List<Arguments> implementations =
+            List.of(
+                    Arguments.of((ConstantsDataFactory) ConstantsMemoryImpl::new),
+                    Arguments.of((ConstantsDataFactory) (mojo, versions) -> new ConstantsMemoryImpl(
+                            mojo,
+                            versions,
+                            new OffHeapValueColumns(mojo, versions.size(), false)
+                    )),
+                    Arguments.of((ConstantsDataFactory) ConstantsSpillImpl::new),
+                    Arguments.of((ConstantsDataFactory) (mojo, versions) -> new ConstantsSpillImpl(
+                            mojo,
+                            versions,
+                            2
+                    )),
+                    Arguments.of((ConstantsDataFactory) ConstantsGraphImpl::new)
+            );
+
+    private static Tuple2<String, Object> field(
+            final String fqn,
+            final Object value
+    ) {
+        return new Tuple2<>(fqn, value);
+    }
+
+    private static Tuple2<SimpleVersionRange, Option<Object>> range(
+            final String start,
+            final String end,
+            final Object value
+    ) {
+        return new Tuple2<>(new SimpleVersionRange(start, Option.of(end)), Option.of(value));
+    }
+
+    private static Tuple2<SimpleVersionRange, Option<Object>> version(
+            final String version,
+            final Object value
+    ) {
+        return new Tuple2<>(new SimpleVersionRange(version, Option.none()), Option.of(value));
+    }
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("implementations")
+    void constancyAndViolations(
+            final ConstantsDataFactory factory
+    ) throws IOException {
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), VERSIONS)) {
+            constantsData.recordConstantFields("1.0", List.of(
+                    field("a.A.CONSTANT", 1),
+                    field("a.A.CHANGED", "x"),
+                    field("a.A.REMOVED", 5L)
+            ));
+            constantsData.recordConstantFields("1.1", List.of(
+                    field("a.A.CONSTANT", 1),
+                    field("a.A.CHANGED", "x"),
+                    field("a.A.ADDED", 2.5d)
+            ));
+            constantsData.recordConstantFields("2.0", List.of(
+                    field("a.A.CONSTANT", 1),
+                    field("a.A.CHANGED", "y"),
+                    field("a.A.ADDED", 2.5d),
+                    field("a.A.REMOVED", 5L)
+            ));
+            constantsData.recordConstantFields("2.1", List.of(
+                    field("a.A.CONSTANT", 1),
+                    field("a.A.CHANGED", "y"),
+                    field("a.A.ADDED", 2.5d)
+            ));
+
+            assertEquals(4, constantsData.constantFieldsCount());
+
+            final List<ConstancyViolation> violations = constantsData.constancyViolationDescriptions()
+                    .sortBy(v -> v.fieldName);
+            assertEquals(
+                    List.of("a.A.CHANGED", "a.A.REMOVED"),
+                    violations.map(v -> v.fieldName)
+            );
+            assertEquals(
+                    List.of(range("1.0", "1.1", "x"), range("2.0", "2.1", "y")),
+                    violations.get(0).fieldValueByVersionRange
+            );
+            assertEquals(
+                    List.of(
+                            version("1.0", 5L),
+                            new Tuple2<>(new SimpleVersionRange("1.1", Option.none()), Option.none()),
+                            version("2.0", 5L)
+                    ),
+                    violations.get(1).fieldValueByVersionRange
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("implementations")
+    void versionsAreOrderedByArtifactVersion(
+            final ConstantsDataFactory factory
+    ) throws IOException {
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), List.of("1.10", "1.9"))) {
+            constantsData.recordConstantFields("1.10", List.of(field("b.B.F", 10)));
+            constantsData.recordConstantFields("1.9", List.of(field("b.B.F", 9)));
+
+            final List<ConstancyViolation> violations = constantsData.constancyViolationDescriptions();
+            assertEquals(1, violations.size());
+            assertEquals(
+                    List.of(version("1.9", 9), version("1.10", 10)),
+                    violations.get(0).fieldValueByVersionRange
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("implementations")
+    void versionsNeverRecordedAreDisregarded(
+            final ConstantsDataFactory factory
+    ) throws IOException {
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), VERSIONS)) {
+            constantsData.recordConstantFields("1.0", List.of(field("a.A.F", 1)));
+            constantsData.recordConstantFields("2.0", List.of(field("a.A.F", 2)));
+            constantsData.recordConstantFields("2.1", List.of(field("a.A.F", 2)));
+
+            final List<ConstancyViolation> violations = constantsData.constancyViolationDescriptions();
+            assertEquals(1, violations.size());
+            assertEquals(
+                    List.of(version("1.0", 1), range("2.0", "2.1", 2)),
+                    violations.get(0).fieldValueByVersionRange
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("implementations")
+    void absencesFromVersionsNeverRecordedAreDisregarded(
+            final ConstantsDataFactory factory
+    ) throws IOException {
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), VERSIONS)) {
+            constantsData.recordConstantFields("2.1", List.of(field("a.A.F", 1), field("a.A.G", 1)));
+            constantsData.recordConstantFields("1.0", List.of(field("a.A.F", 1), field("a.A.G", 1)));
+            constantsData.recordConstantFields("2.0", List.of(field("a.A.F", 1)));
+
+            final List<ConstancyViolation> violations = constantsData.constancyViolationDescriptions();
+            assertEquals(List.of("a.A.G"), violations.map(v -> v.fieldName));
+            assertEquals(
+                    List.of(
+                            version("1.0", 1),
+                            new Tuple2<>(new SimpleVersionRange("2.0", Option.none()), Option.none()),
+                            version("2.1", 1)
+                    ),
+                    violations.get(0).fieldValueByVersionRange
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("implementations")
+    void nullValuesAreAbsences(
+            final ConstantsDataFactory factory
+    ) throws IOException {
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), VERSIONS)) {
+            constantsData.recordConstantFields("1.0", List.of(field("a.A.NULL", null), field("a.A.GAP", 1)));
+            constantsData.recordConstantFields("1.1", List.of(field("a.A.NULL", null), field("a.A.GAP", null)));
+            constantsData.recordConstantFields("2.0", List.of(field("a.A.NULL", null), field("a.A.GAP", 1)));
+            constantsData.recordConstantFields("2.1", List.of(field("a.A.NULL", null)));
+
+            assertEquals(2, constantsData.constantFieldsCount());
+            final List<ConstancyViolation> violations = constantsData.constancyViolationDescriptions();
+            assertEquals(List.of("a.A.GAP"), violations.map(v -> v.fieldName));
+            assertEquals(
+                    List.of(
+                            version("1.0", 1),
+                            new Tuple2<>(new SimpleVersionRange("1.1", Option.none()), Option.none()),
+                            version("2.0", 1)
+                    ),
+                    violations.get(0).fieldValueByVersionRange
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("implementations")
+    void noFields(
+            final ConstantsDataFactory factory
+    ) throws IOException {
+        try (final ConstantsData constantsData = factory.create(new TestingMojo(), VERSIONS)) {
+            VERSIONS.forEach(v -> constantsData.recordConstantFields(v, List.empty()));
+
+            assertEquals(0, constantsData.constantFieldsCount());
+            assertTrue(constantsData.constancyViolationDescriptions().isEmpty());
+        }
+    }
+
+}
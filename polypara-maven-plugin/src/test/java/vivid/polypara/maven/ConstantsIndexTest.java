@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vivid.polypara.annotation.Constant;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+import vivid.polypara.maven.testing.NoConstantsFixture;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConstantsIndexTest {
+
+    private static final List<Tuple2<String, Object>> fields =
+            List.of(
+                    new Tuple2<>("a.A.INT", 1),
+                    new Tuple2<>("a.A.LONG", 2L),
+                    new Tuple2<>("a.b.B.FLOAT", 3.5f),
+                    new Tuple2<>("a.b.B.DOUBLE", 4.25d),
+                    new Tuple2<>("C.STRING", "five"),
+                    new Tuple2<>("C.NULL", null)
+            );
+
+    private static Option<List<Tuple2<String, Object>>> decode(
+            final byte[] index
+    ) throws IOException {
+        return ConstantsIndex.decode(new DataInputStream(new ByteArrayInputStream(index)), new SymbolTable());
+    }
+
+    private static List<Tuple2<String, Object>> scan(
+            final ClassReaderSource classReaders
+    ) {
+        final Mojo mojo = new TestingMojo();
+        return AsmScanner.scan(
+                () -> new AsmFieldAnnotationScanner(mojo, Constant.class),
+                classReaders,
+                ScanExecution.sequential()
+        ).get();
+    }
+
+    /**
+     * @return the build output directory holding the class files of the given classes
+     */
+    private static File classesOf(
+            final Path directory,
+            final List<Class<?>> classes
+    ) throws IOException {
+        for (final Class<?> clazz : classes) {
+            final Path classFile = directory.resolve(clazz.getName().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, Jars.classFileBytes(clazz));
+        }
+        return directory.toFile();
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        assertEquals(Option.of(fields), decode(ConstantsIndex.encode(fields)));
+        assertEquals(Option.of(List.empty()), decode(ConstantsIndex.encode(List.empty())));
+    }
+
+    @Test
+    void indexOfAnotherFormatIsIgnored() throws IOException {
+        assertTrue(decode("not a constants index".getBytes(StandardCharsets.UTF_8)).isEmpty());
+    }
+
+    @Test
+    void jarFileWithoutIndex(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jarFile = Jars.jarOf(directory.resolve("a.jar"), false, List.of(ConstantsFixture.class));
+        assertEquals(
+                Either.right(Option.none()),
+                ConstantsIndex.readFromJarFile(new TestingMojo(), jarFile)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void indexPackagedFromBuildOutputIsReadBack(
+            final boolean stored,
+            @TempDir final Path directory
+    ) throws IOException {
+        final List<Class<?>> classes = List.of(ConstantsFixture.class, NoConstantsFixture.class);
+        final File outputDirectory = classesOf(directory.resolve("classes"), classes);
+        final List<Tuple2<String, Object>> scanned = scan(AsmClassReaders.fromFile(new TestingMojo(), outputDirectory));
+        assertEquals(6, scanned.size());
+
+        ConstantsIndex.writeToDirectory(outputDirectory, ConstantsIndex.encode(scanned));
+        // Packaged as the archiver would
+        final File jarFile = Jars.jarOfEntries(
+                directory.resolve("a.jar"),
+                stored,
+                classes
+                        .map(c -> c.getName().replace('.', '/') + ".class")
+                        .append(Static.POLYPARA_CONSTANTS_INDEX_JAR_ENTRY_NAME)
+                        .map(name -> new Tuple2<>(name, readAllBytes(outputDirectory.toPath().resolve(name))))
+        );
+
+        assertEquals(
+                Either.right(Option.of(scanned)),
+                ConstantsIndex.readFromJarFile(new TestingMojo(), jarFile)
+        );
+        // Neither scanning the build output nor the Jar file mistakes the index for a class
+        assertEquals(scanned, scan(AsmClassReaders.fromFile(new TestingMojo(), outputDirectory)));
+        assertEquals(scanned, scan(AsmClassReaders.fromJarFile(new TestingMojo(), jarFile)));
+    }
+
+    @Test
+    void indexIsReplaced(
+            @TempDir final Path directory
+    ) throws IOException {
+        ConstantsIndex.writeToDirectory(directory.toFile(), ConstantsIndex.encode(fields));
+        final Path indexFile = ConstantsIndex.writeToDirectory(directory.toFile(), ConstantsIndex.encode(fields.take(1)));
+
+        assertEquals(Option.of(fields.take(1)), decode(Files.readAllBytes(indexFile)));
+    }
+
+    private static byte[] readAllBytes(
+            final Path path
+    ) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DigestedValuesTest {
+
+    private static final String STRING_FIELD = ConstantsFixture.class.getName() + ".STRING";
+
+    private static Tuple2<SimpleVersionRange, Option<Object>> digested(
+            final String version,
+            final String value
+    ) {
+        return new Tuple2<>(new SimpleVersionRange(version, Option.none()), Option.of(ValueDictionary.Digest.of(value)));
+    }
+
+    @Test
+    void digestsAreRestoredFromTheirVersions(
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(
+                directory.resolve("repository"),
+                2,
+                ScanExecution.sequential()
+        );
+        final Path classes = directory.resolve("classes");
+        final Path classFile = classes.resolve(ConstantsFixture.class.getName().replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, Jars.classFileBytes(ConstantsFixture.class));
+        mojo.getMavenProject().getBuild().setOutputDirectory(classes.toString());
+        mojo.deploy("0.1", List.of(ConstantsFixture.class));
+        mojo.deploy("0.2", List.of(ConstantsFixture.class));
+
+        final Tuple2<SimpleVersionRange, Option<Object>> absent =
+                new Tuple2<>(new SimpleVersionRange("0.3", Option.none()), Option.none());
+        final List<ConstancyViolation> violations = List.of(new ConstancyViolation(
+                STRING_FIELD,
+                List.of(
+                        digested("0.1", "forty-two"),
+                        absent,
+                        digested("0.2", "another value"),
+                        digested(mojo.getMavenProject().getVersion(), "forty-two")
+                )
+        ));
+
+        final Either<Message, List<ConstancyViolation>> restored = DigestedValues.restore(mojo, violations);
+
+        assertTrue(restored.isRight());
+        assertEquals(
+                List.of(
+                        new Tuple2<>(new SimpleVersionRange("0.1", Option.none()), Option.of("forty-two")),
+                        absent,
+                        // The digest no longer matches the version's value
+                        digested("0.2", "another value"),
+                        new Tuple2<>(
+                                new SimpleVersionRange(mojo.getMavenProject().getVersion(), Option.none()),
+                                Option.of("forty-two")
+                        )
+                ),
+                restored.get().head().fieldValueByVersionRange
+        );
+        // Versions without digested values aren't read
+        assertEquals(2, mojo.resolved.get());
+    }
+
+    @Test
+    void violationsWithoutDigestsAreUntouched() {
+        final List<ConstancyViolation> violations = List.of(new ConstancyViolation(
+                STRING_FIELD,
+                List.of(
+                        new Tuple2<>(new SimpleVersionRange("0.1", Option.none()), Option.of("a")),
+                        new Tuple2<>(new SimpleVersionRange("0.2", Option.none()), Option.of("b"))
+                )
+        ));
+        assertEquals(Either.right(violations), DigestedValues.restore(new TestingMojo(), violations));
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.collection.List;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+import vivid.polypara.maven.testing.Jars;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Mojo execution context resolving artifacts from a directory in the Maven repository
+ * layout, standing in for a remote repository. Artifacts are resolved in batches, firing
+ * the resolver's repository events, and version ranges from the versions found in the
+ * directory. A local repository, also in the Maven repository layout, is optional; as
+ * with the resolver, artifacts found there are taken as they are.
+ */
+class FileRepositoryMojo extends TestingMojo {
+
+    private final Path repository;
+    private final int resolutionThreads;
+    private final ScanExecution scanExecution;
+
+    final AtomicInteger batches = new AtomicInteger();
+    final AtomicInteger resolved = new AtomicInteger();
+    final AtomicInteger versionRangeRequests = new AtomicInteger();
+    volatile Object connectorThreads;
+    volatile String updatePolicy;
+    volatile String checksumPolicy;
+    Path localRepository;
+    private RepositorySystemSession session;
+
+    FileRepositoryMojo(
+            final Path repository,
+            final int resolutionThreads,
+            final ScanExecution scanExecution
+    ) {
+        this.repository = repository;
+        this.resolutionThreads = resolutionThreads;
+        this.scanExecution = scanExecution;
+    }
+
+    /**
+     * Places a Jar file of the given classes in the repository as the given version of the
+     * current project's artifact.
+     */
+    File deploy(
+            final String version,
+            final List<Class<?>> classes
+    ) throws IOException {
+        return deploy(repository, version, classes);
+    }
+
+    File deploy(
+            final Path repository,
+            final String version,
+            final List<Class<?>> classes
+    ) throws IOException {
+        final Path directory = repository
+                .resolve(getMavenProject().getGroupId().replace('.', '/'))
+                .resolve(getMavenProject().getArtifactId())
+                .resolve(version);
+        Files.createDirectories(directory);
+        return Jars.jarOf(
+                directory.resolve(getMavenProject().getArtifactId() + "-" + version + ".jar"),
+                false,
+                classes
+        );
+    }
+
+    @Override
+    public int getResolutionThreads() {
+        return resolutionThreads;
+    }
+
+    @Override
+    public ScanExecution getScanExecution() {
+        return scanExecution;
+    }
+
+    /**
+     * @return the same session throughout, as within a build
+     */
+    @Override
+    public RepositorySystemSession getRepositorySystemSession() {
+        if (session == null) {
+            session = newRepositorySystemSession();
+        }
+        return session;
+    }
+
+    private RepositorySystemSession newRepositorySystemSession() {
+        final DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        if (localRepository != null) {
+            final LocalRepository repository = new LocalRepository(localRepository.toFile());
+            session.setLocalRepositoryManager((LocalRepositoryManager) Proxy.newProxyInstance(
+                    LocalRepositoryManager.class.getClassLoader(),
+                    new Class<?>[] { LocalRepositoryManager.class },
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getRepository":
+                                return repository;
+                            case "getPathForLocalArtifact":
+                                return pathOf((Artifact) args[0]);
+                            case "find":
+                                return findInLocalRepository((LocalArtifactRequest) args[1]);
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+            ));
+        }
+        return session;
+    }
+
+    private LocalArtifactResult findInLocalRepository(
+            final LocalArtifactRequest request
+    ) {
+        final LocalArtifactResult result = new LocalArtifactResult(request);
+        final File file = localRepository.resolve(pathOf(request.getArtifact())).toFile();
+        // Snapshots are checked for updates instead
+        if (file.isFile() && !request.getArtifact().isSnapshot()) {
+            result.setFile(file);
+            result.setAvailable(true);
+        }
+        return result;
+    }
+
+    private static String pathOf(
+            final Artifact artifact
+    ) {
+        return artifact.getGroupId().replace('.', '/') + '/' +
+                artifact.getArtifactId() + '/' +
+                artifact.getBaseVersion() + '/' +
+                artifact.getArtifactId() + '-' + artifact.getVersion() + '.' + artifact.getExtension();
+    }
+
+    @Override
+    public RepositorySystem getRepositorySystem() {
+        return (RepositorySystem) Proxy.newProxyInstance(
+                RepositorySystem.class.getClassLoader(),
+                new Class<?>[] { RepositorySystem.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "resolveArtifacts":
+                            @SuppressWarnings("unchecked")
+                            final Collection<ArtifactRequest> requests = (Collection<ArtifactRequest>) args[1];
+                            return resolveArtifacts((RepositorySystemSession) args[0], requests);
+                        case "resolveVersionRange":
+                            return resolveVersionRange((VersionRangeRequest) args[1]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+        );
+    }
+
+    private java.util.List<ArtifactResult> resolveArtifacts(
+            final RepositorySystemSession session,
+            final Collection<ArtifactRequest> requests
+    ) throws ArtifactResolutionException {
+        batches.incrementAndGet();
+        connectorThreads = session.getConfigProperties().get("aether.connector.basic.threads");
+        updatePolicy = session.getUpdatePolicy();
+        checksumPolicy = session.getChecksumPolicy();
+
+        final java.util.List<ArtifactResult> results = new ArrayList<>();
+        boolean failed = false;
+        for (final ArtifactRequest request : requests) {
+            final Artifact artifact = request.getArtifact();
+            session.getRepositoryListener().artifactResolving(
+                    new RepositoryEvent.Builder(session, RepositoryEvent.EventType.ARTIFACT_RESOLVING)
+                            .setArtifact(artifact)
+                            .build()
+            );
+            final ArtifactResult result = new ArtifactResult(request);
+            final LocalArtifactResult local = session.getLocalRepositoryManager() == null
+                    ? null
+                    : session.getLocalRepositoryManager().find(session, new LocalArtifactRequest(artifact, null, null));
+            final File file = repository.resolve(pathOf(artifact)).toFile();
+            if (local != null && local.isAvailable()) {
+                // Taken as is, as the resolver does
+                result.setArtifact(artifact.setFile(local.getFile()));
+            } else {
+                resolved.incrementAndGet();
+                if (file.isFile()) {
+                    result.setArtifact(artifact.setFile(file));
+                } else {
+                    result.addException(new ArtifactNotFoundException(artifact, null));
+                    failed = true;
+                }
+            }
+            session.getRepositoryListener().artifactResolved(
+                    new RepositoryEvent.Builder(session, RepositoryEvent.EventType.ARTIFACT_RESOLVED)
+                            .setArtifact(artifact)
+                            .build()
+            );
+            results.add(result);
+        }
+        if (failed) {
+            throw new ArtifactResolutionException(results);
+        }
+        return results;
+    }
+
+    private VersionRangeResult resolveVersionRange(
+            final VersionRangeRequest request
+    ) throws IOException, VersionRangeResolutionException {
+        versionRangeRequests.incrementAndGet();
+        final VersionRangeResult result = new VersionRangeResult(request);
+        final GenericVersionScheme scheme = new GenericVersionScheme();
+        final VersionConstraint constraint;
+        try {
+            constraint = scheme.parseVersionConstraint(request.getArtifact().getVersion());
+        } catch (final InvalidVersionSpecificationException e) {
+            result.addException(e);
+            throw new VersionRangeResolutionException(result);
+        }
+
+        final Path directory = repository
+                .resolve(getMavenProject().getGroupId().replace('.', '/'))
+                .resolve(getMavenProject().getArtifactId());
+        final java.util.List<Version> versions = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (final Stream<Path> paths = Files.list(directory)) {
+                for (final Path path : (Iterable<Path>) paths::iterator) {
+                    final Version version = scheme.parseVersion(path.getFileName().toString());
+                    if (constraint.containsVersion(version)) {
+                        versions.add(version);
+                    }
+                }
+            } catch (final InvalidVersionSpecificationException e) {
+                throw new IOException(e);
+            }
+        }
+        Collections.sort(versions);
+        result.setVersionConstraint(constraint);
+        result.setVersions(versions);
+        return result;
+    }
+
+}
@@ -20,6 +20,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import vivid.junit5.params.provider.StreamableStaticFieldSource;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -81,6 +83,22 @@ public class JavaClassesTest {
         );
     }
 
+    @ParameterizedTest
+    @StreamableStaticFieldSource("classFileBytes")
+    void classFileBuffer(
+            final byte[] inputStreamBytes,
+            final boolean expected
+    ) {
+        final byte[] padded = new byte[inputStreamBytes.length + 1];
+        System.arraycopy(inputStreamBytes, 0, padded, 1, inputStreamBytes.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(padded, 1, inputStreamBytes.length);
+        assertEquals(
+                expected,
+                JavaClasses.startsWithJavaClassFileMagic(buffer)
+        );
+        assertEquals(1, buffer.position());
+    }
+
     @Test
     void nullClassFileBytes() {
         assertThrows(
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+import vivid.polypara.maven.testing.NoConstantsFixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedJarFileTest {
+
+    private static byte[] bytesOf(
+            final ByteBuffer buffer
+    ) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Entry as read, since the iterator reuses its {@code Entry} instance.
+     */
+    private static class ReadEntry {
+        private final String name;
+        private final boolean isJavaClassFile;
+        private final int crc;
+        private final long uncompressedSize;
+        private final byte[] contents;
+
+        private ReadEntry(
+                final MappedJarFile jarFile,
+                final MappedJarFile.Entry entry
+        ) throws IOException {
+            this.name = jarFile.name(entry);
+            this.isJavaClassFile = jarFile.isJavaClassFile(entry);
+            this.crc = entry.crc();
+            this.uncompressedSize = entry.uncompressedSize();
+            this.contents = bytesOf(jarFile.contents(entry));
+        }
+    }
+
+    private static java.util.List<ReadEntry> entriesOf(
+            final MappedJarFile jarFile
+    ) throws IOException {
+        final java.util.List<ReadEntry> entries = new ArrayList<>();
+        final Iterator<MappedJarFile.Entry> i = jarFile.entries();
+        while (i.hasNext()) {
+            entries.add(new ReadEntry(jarFile, i.next()));
+        }
+        return entries;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void entriesAndContents(
+            final boolean stored,
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOf(
+                directory.resolve("fixture.jar"),
+                stored,
+                List.of(ConstantsFixture.class, NoConstantsFixture.class)
+        );
+
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar).get()) {
+            final java.util.List<ReadEntry> entries = entriesOf(jarFile);
+            assertEquals(
+                    List.of(
+                            "META-INF/resource.txt",
+                            "vivid/polypara/maven/testing/ConstantsFixture.class",
+                            "vivid/polypara/maven/testing/NoConstantsFixture.class"
+                    ),
+                    List.ofAll(entries).map(e -> e.name)
+            );
+            assertEquals(
+                    List.of(false, true, true),
+                    List.ofAll(entries).map(e -> e.isJavaClassFile)
+            );
+
+            assertArrayEquals(
+                    "not a class".getBytes(StandardCharsets.UTF_8),
+                    entries.get(0).contents
+            );
+            for (final Tuple2<Class<?>, Integer> fixture : List.of(ConstantsFixture.class, NoConstantsFixture.class).zip(List.of(1, 2))) {
+                final byte[] expected = Jars.classFileBytes(fixture._1);
+                final ReadEntry entry = entries.get(fixture._2);
+                assertArrayEquals(expected, entry.contents);
+                assertEquals(expected.length, entry.uncompressedSize);
+                final CRC32 crc = new CRC32();
+                crc.update(expected);
+                assertEquals((int) crc.getValue(), entry.crc);
+            }
+        }
+    }
+
+    @Test
+    void archiveComment(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Path jar = directory.resolve("commented.jar");
+        try (
+                final OutputStream os = Files.newOutputStream(jar);
+                final JarOutputStream out = new JarOutputStream(os)
+        ) {
+            out.putNextEntry(new JarEntry("a.class"));
+            out.write(Jars.classFileBytes(NoConstantsFixture.class));
+            out.closeEntry();
+            out.setComment("PK\u0005\u0006 lookalike within the comment");
+        }
+
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar.toFile()).get()) {
+            final java.util.List<ReadEntry> entries = entriesOf(jarFile);
+            assertEquals(1, entries.size());
+            assertArrayEquals(
+                    Jars.classFileBytes(NoConstantsFixture.class),
+                    entries.get(0).contents
+            );
+        }
+    }
+
+    @Test
+    void storedContentsAreViewsOfTheMapping(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOf(directory.resolve("stored.jar"), true, List.of(ConstantsFixture.class));
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar).get()) {
+            final Iterator<MappedJarFile.Entry> entries = jarFile.entries();
+            entries.next();
+            final ByteBuffer contents = jarFile.contents(entries.next());
+            assertTrue(contents.isDirect());
+            assertTrue(contents.isReadOnly());
+        }
+    }
+
+    @Test
+    void entryIsReusedAcrossRecords(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOf(directory.resolve("fixture.jar"), false, List.of(ConstantsFixture.class));
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar).get()) {
+            final Iterator<MappedJarFile.Entry> entries = jarFile.entries();
+            assertSame(entries.next(), entries.next());
+        }
+    }
+
+    @Test
+    void findByName(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOf(directory.resolve("fixture.jar"), false, List.of(ConstantsFixture.class));
+        try (final MappedJarFile jarFile = MappedJarFile.open(jar).get()) {
+            final Option<MappedJarFile.Entry> found = jarFile.find("META-INF/resource.txt");
+            assertTrue(found.isDefined());
+            assertArrayEquals(
+                    "not a class".getBytes(StandardCharsets.UTF_8),
+                    bytesOf(jarFile.contents(found.get()))
+            );
+            assertTrue(jarFile.find("META-INF/resource").isEmpty());
+            assertTrue(jarFile.find("META-INF/resource.txt.bak").isEmpty());
+        }
+    }
+
+    @Test
+    void notAnArchive(
+            @TempDir final Path directory
+    ) throws IOException {
+        final Path file = Files.write(directory.resolve("not.jar"), new byte[100]);
+        assertThrows(ZipException.class, () -> MappedJarFile.open(file.toFile()));
+    }
+
+    @Test
+    void emptyArchive(
+            @TempDir final Path directory
+    ) throws IOException {
+        final File jar = Jars.jarOfEntries(directory.resolve("empty.jar"), false, List.empty());
+        final Option<MappedJarFile> mapped = MappedJarFile.open(jar);
+        assertTrue(mapped.isDefined());
+        try (final MappedJarFile jarFile = mapped.get()) {
+            assertFalse(entriesOf(jarFile).isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.collection.List;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vivid.polypara.maven.testing.ConstantsFixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MavenArtifactResolutionTest {
+
+    @Test
+    void versionsAreResolvedInOneBatch(
+            @TempDir final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(repository, 3, ScanExecution.sequential());
+        mojo.deploy("0.1", List.of(ConstantsFixture.class));
+        mojo.deploy("0.2", List.of(ConstantsFixture.class));
+        mojo.deploy("0.3", List.of(ConstantsFixture.class));
+
+        final List<ArtifactResult> results =
+                MavenArtifactResolution.resolveArtifacts(mojo, List.of("0.3", "0.1", "0.2"));
+
+        assertEquals(List.of("0.3", "0.1", "0.2"), results.map(r -> r.getArtifact().getVersion()));
+        assertTrue(results.forAll(r -> r.isResolved() && r.getArtifact().getFile().isFile()));
+        assertEquals(1, mojo.batches.get());
+        assertEquals(3, mojo.connectorThreads);
+    }
+
+    @Test
+    void everyUnresolvableVersionIsReported(
+            @TempDir final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(repository, 3, ScanExecution.sequential());
+        mojo.deploy("0.2", List.of(ConstantsFixture.class));
+
+        final List<ArtifactResult> results =
+                MavenArtifactResolution.resolveArtifacts(mojo, List.of("0.1", "0.2", "0.3"));
+        assertEquals(List.of(false, true, false), results.map(ArtifactResult::isResolved));
+
+        final Message message = MavenArtifactResolution.unresolvable(results.filter(r -> !r.isResolved()));
+        final String rendered = message.render(mojo);
+        assertTrue(rendered.startsWith("VPE-3"), rendered);
+        assertTrue(rendered.contains("vivid.polypara.testing:testing-project:0.1"), rendered);
+        assertTrue(rendered.contains("vivid.polypara.testing:testing-project:0.3"), rendered);
+        assertFalse(rendered.contains(":0.2"), rendered);
+        assertTrue(message.getCause().get() instanceof ArtifactResolutionException);
+    }
+
+    @Test
+    void releasedVersionsInTheLocalRepositoryAreNotResolved(
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(directory.resolve("remote"), 3, ScanExecution.sequential());
+        mojo.localRepository = directory.resolve("local");
+        final File local = mojo.deploy(mojo.localRepository, "0.1", List.of(ConstantsFixture.class));
+        mojo.deploy(mojo.localRepository, "0.3-SNAPSHOT", List.of(ConstantsFixture.class));
+        mojo.deploy("0.2", List.of(ConstantsFixture.class));
+        mojo.deploy("0.3-SNAPSHOT", List.of(ConstantsFixture.class));
+
+        final List<ArtifactResult> results =
+                MavenArtifactResolution.resolveArtifacts(mojo, List.of("0.2", "0.1", "0.3-SNAPSHOT"));
+
+        assertEquals(List.of("0.2", "0.1", "0.3-SNAPSHOT"), results.map(r -> r.getArtifact().getVersion()));
+        assertEquals(local, results.get(1).getArtifact().getFile());
+        // Snapshots are left to the resolver, which checks for updates
+        assertEquals(2, mojo.resolved.get());
+        assertEquals(1, mojo.batches.get());
+    }
+
+    @Test
+    void localFilesNotMatchingTheirChecksumAreResolvedAgain(
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(directory.resolve("remote"), 3, ScanExecution.sequential());
+        mojo.localRepository = directory.resolve("local");
+        final File local = mojo.deploy(mojo.localRepository, "0.1", List.of(ConstantsFixture.class));
+        final File remote = mojo.deploy("0.1", List.of(ConstantsFixture.class));
+        Files.write(
+                local.toPath().resolveSibling(local.getName() + ".sha1"),
+                ArtifactChecksums.digest(local, ArtifactChecksums.SHA1).getBytes(StandardCharsets.US_ASCII)
+        );
+        // Truncated by an interrupted download
+        Files.write(local.toPath(), Arrays.copyOf(Files.readAllBytes(local.toPath()), 100));
+
+        final List<ArtifactResult> results = MavenArtifactResolution.resolveArtifacts(mojo, List.of("0.1"));
+
+        assertTrue(results.get(0).isResolved());
+        assertEquals(1, mojo.resolved.get());
+        assertArrayEquals(
+                Files.readAllBytes(remote.toPath()),
+                Files.readAllBytes(results.get(0).getArtifact().getFile().toPath())
+        );
+        assertEquals(RepositoryPolicy.UPDATE_POLICY_ALWAYS, mojo.updatePolicy);
+        assertEquals(RepositoryPolicy.CHECKSUM_POLICY_FAIL, mojo.checksumPolicy);
+        // Left in place for the resolver to replace
+        assertEquals(100, Files.size(local.toPath()));
+    }
+
+    @Test
+    void noVersionsToResolve(
+            @TempDir final Path repository
+    ) {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(repository, 3, ScanExecution.sequential());
+        assertEquals(List.empty(), MavenArtifactResolution.resolveArtifacts(mojo, List.empty()));
+        assertEquals(0, mojo.batches.get());
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import vivid.junit5.params.provider.StreamableStaticFieldSource;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class OffHeapValueArenaTest {
+
+    public static final List<org.junit.jupiter.params.provider.Arguments> values = ValueDictionaryTest.values;
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("values")
+    void roundTrip(
+            final Object value
+    ) {
+        final OffHeapValueArena arena = new OffHeapValueArena(false);
+        final int code = arena.encode(value);
+        assertNotEquals(ValueDictionary.ABSENT, code);
+        assertEquals(value, arena.decode(code));
+        assertEquals(code, arena.encode(value));
+        assertEquals(1, arena.size());
+    }
+
+    @Test
+    void absent() {
+        final OffHeapValueArena arena = new OffHeapValueArena(false);
+        assertEquals(ValueDictionary.ABSENT, arena.encode(null));
+        assertNull(arena.decode(ValueDictionary.ABSENT));
+        assertEquals(0, arena.size());
+    }
+
+    @Test
+    void equalPrimitivesOfDifferentTypesAreDistinct() {
+        final OffHeapValueArena arena = new OffHeapValueArena(false);
+        final List<Integer> codes = List.of(1, 1L, 1.0f, 1.0d, "1").map(arena::encode);
+        assertEquals(5, codes.distinct().size());
+        assertEquals(List.of(1, 1L, 1.0f, 1.0d, "1"), codes.map(arena::decode));
+    }
+
+    @Test
+    void manyDistinctValues() {
+        final OffHeapValueArena arena = new OffHeapValueArena(false);
+        final List<Integer> codes = List.range(0, 10_000).map(i -> arena.encode("KEY_" + i));
+        assertEquals(10_000, arena.size());
+        assertEquals(codes, List.range(0, 10_000).map(i -> arena.encode("KEY_" + i)));
+        assertEquals(
+                List.range(0, 10_000).map(i -> "KEY_" + i),
+                codes.map(arena::decode)
+        );
+    }
+
+    @Test
+    void longStringsAreDigestedOnRequest() {
+        final String longString = String.join(", ", List.fill(20, "column").asJava());
+        final OffHeapValueArena digesting = new OffHeapValueArena(true);
+
+        final int code = digesting.encode(longString);
+        assertEquals(code, digesting.encode(new String(longString.toCharArray())));
+        assertEquals(ValueDictionary.Digest.of(longString), digesting.decode(code));
+        assertEquals("short", digesting.decode(digesting.encode("short")));
+
+        final OffHeapValueArena plain = new OffHeapValueArena(false);
+        assertEquals(longString, plain.decode(plain.encode(longString)));
+    }
+
+    @Test
+    void valuesOfOtherTypesAreHeldOnTheHeap() {
+        final OffHeapValueArena arena = new OffHeapValueArena(false);
+        final int code = arena.encode(BigInteger.TEN);
+        assertEquals(code, arena.encode(BigInteger.TEN));
+        assertEquals(BigInteger.TEN, arena.decode(code));
+        assertNotEquals(code, arena.encode(10));
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SymbolTableTest {
+
+    @Test
+    void internalAndBinaryClassNamesAreTheSameClass() {
+        final SymbolTable symbols = new SymbolTable();
+        assertSame(symbols.classSymbol("a/b/C$D"), symbols.classSymbol("a.b.C$D"));
+        assertEquals("a.b.C$D.FIELD", symbols.fullyQualifiedName(symbols.classSymbol("a/b/C$D"), "FIELD"));
+    }
+
+    @Test
+    void fullyQualifiedNamesAreInterned() {
+        final SymbolTable symbols = new SymbolTable();
+        final String fqn = symbols.fullyQualifiedName(symbols.classSymbol("a/b/C"), "FIELD");
+        assertSame(fqn, symbols.intern(new String("a.b.C.FIELD".toCharArray())));
+        assertSame(fqn, symbols.fullyQualifiedName(symbols.classSymbol("a/b/C"), "FIELD"));
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    void fieldsOfDistinctClassesAreDistinct() {
+        final SymbolTable symbols = new SymbolTable();
+        final SymbolTable.ClassSymbol c = symbols.classSymbol("a.b.C");
+        final SymbolTable.ClassSymbol e = symbols.classSymbol("a.E");
+        assertEquals("a.b.C.X", symbols.fullyQualifiedName(c, "X"));
+        assertEquals("a.E.X", symbols.fullyQualifiedName(e, "X"));
+        assertEquals("a.b.C.Y", symbols.fullyQualifiedName(c, "Y"));
+        assertSame(symbols.fullyQualifiedName(c, "X"), symbols.intern("a.b.C.X"));
+        assertEquals(3, symbols.size());
+    }
+
+    @Test
+    void unqualifiedNamesAreLeftAsTheyAre() {
+        final SymbolTable symbols = new SymbolTable();
+        assertEquals("FIELD", symbols.intern("FIELD"));
+        assertEquals(0, symbols.size());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.control.Option;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.testing.SilentLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.i18n.DefaultI18N;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.InitializationException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal Mojo execution context for exercising sub-systems outside of a Maven build.
+ */
+class TestingMojo implements Mojo {
+
+    private final I18nContext i18nContext;
+    private final Log log = new SilentLog();
+    private final MavenProject mavenProject;
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    TestingMojo() {
+        final DefaultI18N i18n = new DefaultI18N();
+        i18n.enableLogging(new ConsoleLogger(Logger.LEVEL_DISABLED, "i18n"));
+        try {
+            i18n.initialize();
+        } catch (final InitializationException e) {
+            throw new IllegalStateException(e);
+        }
+        this.i18nContext = new I18nContext(i18n);
+
+        this.mavenProject = new MavenProject();
+        mavenProject.setGroupId("vivid.polypara.testing");
+        mavenProject.setArtifactId("testing-project");
+        mavenProject.setVersion("1.0.0");
+    }
+
+    @Override
+    public Option<ConstantTableCache> getConstantTableCache() {
+        return Option.none();
+    }
+
+    @Override
+    public I18nContext getI18nContext() {
+        return i18nContext;
+    }
+
+    @Override
+    public Log getLog() {
+        return log;
+    }
+
+    @Override
+    public MavenProject getMavenProject() {
+        return mavenProject;
+    }
+
+    @Override
+    public VerifyConstantsMojo.ReportingLevel getReportingLevel() {
+        return VerifyConstantsMojo.ReportingLevel.ERROR;
+    }
+
+    @Override
+    public List<RemoteRepository> getRemoteRepositories() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int getResolutionThreads() {
+        return 1;
+    }
+
+    @Override
+    public ScanExecution getScanExecution() {
+        return ScanExecution.sequential();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    @Override
+    public RepositorySystem getRepositorySystem() {
+        return null;
+    }
+
+    @Override
+    public RepositorySystemSession getRepositorySystemSession() {
+        return null;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import vivid.junit5.params.provider.StreamableStaticFieldSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ValueDictionaryTest {
+
+    public static final List<Arguments> values =
+            List.of(
+                    Arguments.of(0),
+                    Arguments.of(-1),
+                    Arguments.of(Integer.MAX_VALUE),
+                    Arguments.of(0L),
+                    Arguments.of(Long.MIN_VALUE),
+                    Arguments.of(1.5f),
+                    Arguments.of(Float.NaN),
+                    Arguments.of(-0.0d),
+                    Arguments.of(Double.NaN),
+                    Arguments.of(""),
+                    Arguments.of("SELECT * FROM accounts")
+            );
+
+    @ParameterizedTest
+    @StreamableStaticFieldSource("values")
+    void roundTrip(
+            final Object value
+    ) {
+        final ValueDictionary dictionary = new ValueDictionary();
+        final int code = dictionary.encode(value);
+        assertNotEquals(ValueDictionary.ABSENT, code);
+        assertEquals(value, dictionary.decode(code));
+        assertEquals(code, dictionary.encode(value));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void absent() {
+        final ValueDictionary dictionary = new ValueDictionary();
+        assertEquals(ValueDictionary.ABSENT, dictionary.encode(null));
+        assertNull(dictionary.decode(ValueDictionary.ABSENT));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void equalPrimitivesOfDifferentTypesAreDistinct() {
+        final ValueDictionary dictionary = new ValueDictionary();
+        final List<Integer> codes = List.of(1, 1L, 1.0f, 1.0d, "1").map(dictionary::encode);
+        assertEquals(5, codes.distinct().size());
+        assertEquals(List.of(1, 1L, 1.0f, 1.0d, "1"), codes.map(dictionary::decode));
+    }
+
+    @Test
+    void manyDistinctValues() {
+        final ValueDictionary dictionary = new ValueDictionary();
+        final List<Integer> codes = List.range(0, 10_000).map(i -> dictionary.encode((long) i * 31));
+        assertEquals(10_000, dictionary.size());
+        assertEquals(codes, List.range(0, 10_000).map(i -> dictionary.encode((long) i * 31)));
+        assertEquals(
+                List.range(0, 10_000).map(i -> (long) i * 31),
+                codes.map(dictionary::decode)
+        );
+    }
+
+    @Test
+    void longStringsAreDigestedOnRequest() {
+        final String longString = String.join(", ", List.fill(20, "column").asJava());
+        final String otherLongString = longString + "s";
+        final ValueDictionary digesting = new ValueDictionary(true);
+
+        final int code = digesting.encode(longString);
+        assertEquals(code, digesting.encode(new String(longString.toCharArray())));
+        assertNotEquals(code, digesting.encode(otherLongString));
+        assertEquals(ValueDictionary.Digest.of(longString), digesting.decode(code));
+        assertNotEquals(ValueDictionary.Digest.of(longString), ValueDictionary.Digest.of(otherLongString));
+        // Short strings are held as they are
+        assertEquals("short", digesting.decode(digesting.encode("short")));
+        assertEquals(3, digesting.size());
+
+        final ValueDictionary plain = new ValueDictionary();
+        assertEquals(longString, plain.decode(plain.encode(longString)));
+    }
+
+}
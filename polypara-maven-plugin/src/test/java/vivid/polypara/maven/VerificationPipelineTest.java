@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+import vivid.polypara.maven.testing.NoConstantsFixture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerificationPipelineTest {
+
+    /**
+     * Records the versions and their number of fields, in the order recorded.
+     */
+    private static class RecordingConstantsData implements ConstantsData {
+
+        private final java.util.List<Tuple2<String, Integer>> recorded = new ArrayList<>();
+
+        @Override
+        public void recordConstantFields(
+                final String version,
+                final List<Tuple2<String, Object>> fields
+        ) {
+            recorded.add(new Tuple2<>(version, fields.size()));
+        }
+
+        @Override
+        public List<ConstancyViolation> constancyViolationDescriptions() {
+            return List.empty();
+        }
+
+        @Override
+        public int constantFieldsCount() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+
+    }
+
+    private static final List<String> VERSIONS =
+            List.rangeClosed(1, 12).map(i -> "0." + i);
+
+    private static FileRepositoryMojo mojo(
+            final Path directory,
+            final int threads
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(
+                directory.resolve("repository"),
+                2,
+                ScanExecution.withThreads(threads)
+        );
+        final Path classes = directory.resolve("classes");
+        final Path classFile = classes.resolve(ConstantsFixture.class.getName().replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, Jars.classFileBytes(ConstantsFixture.class));
+        mojo.getMavenProject().getBuild().setOutputDirectory(classes.toString());
+        return mojo;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void versionsAreRecordedInVersionOrder(
+            final int threads,
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = mojo(directory, threads);
+        for (final String version : VERSIONS) {
+            mojo.deploy(
+                    version,
+                    version.length() % 2 == 0
+                            ? List.of(ConstantsFixture.class)
+                            : List.of(ConstantsFixture.class, NoConstantsFixture.class)
+            );
+        }
+
+        final RecordingConstantsData constantsData = new RecordingConstantsData();
+        try {
+            assertEquals(
+                    Either.right(VERSIONS.size() + 1),
+                    VerificationPipeline.run(mojo, VERSIONS, constantsData)
+            );
+        } finally {
+            mojo.getScanExecution().close();
+        }
+
+        assertEquals(
+                VERSIONS.prepend(mojo.getMavenProject().getVersion()).map(v -> new Tuple2<>(v, 6)),
+                List.ofAll(constantsData.recorded)
+        );
+        // Versions are resolved in batches of resolutionThreads versions
+        assertEquals(VERSIONS.size() / 2, mojo.batches.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void everyUnresolvableVersionIsReported(
+            final int threads,
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = mojo(directory, threads);
+        for (final String version : VERSIONS.removeAll(List.of("0.2", "0.11"))) {
+            mojo.deploy(version, List.of(ConstantsFixture.class));
+        }
+
+        final Either<Message, Integer> recorded;
+        try {
+            recorded = VerificationPipeline.run(mojo, VERSIONS, new RecordingConstantsData());
+        } finally {
+            mojo.getScanExecution().close();
+        }
+
+        assertTrue(recorded.isLeft());
+        final String rendered = recorded.getLeft().render(mojo);
+        assertTrue(rendered.startsWith("VPE-3"), rendered);
+        assertTrue(rendered.contains("testing-project:0.2  "), rendered);
+        assertTrue(rendered.contains("testing-project:0.11"), rendered);
+        // Resolution continues after a failure, so as to report every failure
+        assertEquals(VERSIONS.size() / 2, mojo.batches.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void firstVersionThatCantBeScannedIsReported(
+            final int threads,
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = mojo(directory, threads);
+        for (final String version : VERSIONS) {
+            final File jarFile = mojo.deploy(version, List.of(ConstantsFixture.class));
+            if (version.equals("0.4") || version.equals("0.7")) {
+                Files.write(jarFile.toPath(), "not a Jar file".getBytes("UTF-8"));
+            }
+        }
+
+        final RecordingConstantsData constantsData = new RecordingConstantsData();
+        final Either<Message, Integer> recorded;
+        try {
+            recorded = VerificationPipeline.run(mojo, VERSIONS, constantsData);
+        } finally {
+            mojo.getScanExecution().close();
+        }
+
+        assertTrue(recorded.isLeft());
+        final String rendered = recorded.getLeft().render(mojo);
+        assertTrue(rendered.startsWith("VPE-4"), rendered);
+        assertTrue(rendered.contains("testing-project-0.4.jar"), rendered);
+        assertEquals(
+                List.of(mojo.getMavenProject().getVersion(), "0.1", "0.2", "0.3"),
+                List.ofAll(constantsData.recorded).map(Tuple2::_1)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void nothingIsRecordedOnceDone(
+            final int threads,
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = mojo(directory, threads);
+        for (final String version : VERSIONS) {
+            mojo.deploy(version, List.of(ConstantsFixture.class));
+        }
+        // Left unresolved, yet not reported once done
+        final List<String> versions = VERSIONS.reverse().append("0.0");
+
+        final RecordingConstantsData constantsData = new RecordingConstantsData();
+        try {
+            assertEquals(
+                    Either.right(4),
+                    VerificationPipeline.run(
+                            mojo,
+                            versions,
+                            constantsData::recordConstantFields,
+                            new ScannedClassFiles<>(),
+                            true,
+                            () -> constantsData.recorded.size() == 4
+                    )
+            );
+        } finally {
+            mojo.getScanExecution().close();
+        }
+
+        assertEquals(
+                List.of(mojo.getMavenProject().getVersion(), "0.12", "0.11", "0.10"),
+                List.ofAll(constantsData.recorded).map(Tuple2::_1)
+        );
+    }
+
+    @Test
+    void recordingFailureStopsEveryStage(
+            @TempDir final Path directory
+    ) throws IOException, InterruptedException {
+        final FileRepositoryMojo mojo = mojo(directory, 3);
+        for (final String version : VERSIONS) {
+            mojo.deploy(version, List.of(ConstantsFixture.class));
+        }
+
+        final ExecutorService executor = mojo.getScanExecution().versionExecutor().get();
+        try {
+            final IllegalStateException thrown = assertThrows(
+                    IllegalStateException.class,
+                    () -> VerificationPipeline.run(
+                            mojo,
+                            VERSIONS,
+                            (version, fields) -> {
+                                throw new IllegalStateException("Recording " + version);
+                            },
+                            new ScannedClassFiles<>(),
+                            true,
+                            () -> false
+                    )
+            );
+            assertEquals("Recording " + mojo.getMavenProject().getVersion(), thrown.getMessage());
+
+            // Without being interrupted, none of the resolving and scanning threads is left blocked
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            mojo.getScanExecution().close();
+        }
+    }
+
+}
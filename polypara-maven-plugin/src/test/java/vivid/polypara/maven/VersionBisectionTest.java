@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vivid.polypara.maven.testing.ConstantsFixture;
+import vivid.polypara.maven.testing.Jars;
+import vivid.polypara.maven.testing.NoConstantsFixture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VersionBisectionTest {
+
+    private static final String INT_FIELD = ConstantsFixture.class.getName() + ".INT";
+
+    /**
+     * The {@code Constant} fields are absent from versions 0.10 through 0.16.
+     */
+    private static final List<String> VERSIONS =
+            List.rangeClosed(1, 16).map(i -> "0." + i);
+
+    private static FileRepositoryMojo mojo(
+            final Path directory,
+            final int threads
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(
+                directory.resolve("repository"),
+                2,
+                ScanExecution.withThreads(threads)
+        );
+        final Path classes = directory.resolve("classes");
+        final Path classFile = classes.resolve(ConstantsFixture.class.getName().replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, Jars.classFileBytes(ConstantsFixture.class));
+        mojo.getMavenProject().getBuild().setOutputDirectory(classes.toString());
+
+        for (final String version : VERSIONS) {
+            mojo.deploy(
+                    version,
+                    version.length() == 3
+                            ? List.of(ConstantsFixture.class)
+                            : List.of(NoConstantsFixture.class)
+            );
+        }
+        return mojo;
+    }
+
+    private static VersionBisection bisect(
+            final FileRepositoryMojo mojo,
+            final int sampling
+    ) {
+        final Either<Message, VersionBisection> bisection;
+        try {
+            bisection = VersionBisection.run(
+                    mojo,
+                    VERSIONS.append(mojo.getMavenProject().getVersion()),
+                    sampling
+            );
+        } finally {
+            mojo.getScanExecution().close();
+        }
+        assertTrue(bisection.isRight());
+        return bisection.get();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void spansWhoseEndsAgreeAreNotScanned(
+            final int threads,
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = mojo(directory, threads);
+
+        final VersionBisection bisection = bisect(mojo, 0);
+
+        // The oldest version and the current project's version agree
+        assertEquals(List.of("0.1", "1.0.0"), bisection.scannedVersions());
+        assertEquals(1, bisection.rounds());
+        assertEquals(1, mojo.resolved.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void changesAreLocatedExactly(
+            final int threads,
+            @TempDir final Path directory
+    ) throws IOException {
+        final FileRepositoryMojo mojo = mojo(directory, threads);
+
+        final VersionBisection bisection = bisect(mojo, 4);
+
+        assertEquals(
+                List.of("0.1", "0.5", "0.9", "0.10", "0.11", "0.13", "0.15", "0.16", "1.0.0"),
+                bisection.scannedVersions()
+        );
+        assertEquals(3, bisection.rounds());
+        assertEquals(8, mojo.resolved.get());
+
+        try (final ConstantsData constantsData = new ConstantsMemoryImpl(mojo, bisection.scannedVersions())) {
+            bisection.recordInto(constantsData);
+            final ConstancyViolation violation = constantsData.constancyViolationDescriptions()
+                    .find(v -> v.fieldName.equals(INT_FIELD))
+                    .get();
+            assertEquals(
+                    List.of(
+                            new Tuple2<>(new SimpleVersionRange("0.1", Option.of("0.9")), Option.of(42)),
+                            new Tuple2<>(new SimpleVersionRange("0.10", Option.of("0.16")), Option.none()),
+                            new Tuple2<>(new SimpleVersionRange("1.0.0", Option.none()), Option.of(42))
+                    ),
+                    violation.fieldValueByVersionRange
+            );
+        }
+    }
+
+}
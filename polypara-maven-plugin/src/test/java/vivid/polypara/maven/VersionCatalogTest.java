@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vivid.polypara.maven.testing.ConstantsFixture;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VersionCatalogTest {
+
+    @Test
+    void versionsAreSortedByArtifactVersion() {
+        final VersionCatalog catalog = new VersionCatalog(List.of("1.10", "1.9", "2.0-alpha-1", "1.0"));
+        assertEquals(
+                List.of("1.0", "1.9", "1.10", "2.0-alpha-1"),
+                catalog.inVersionOrder().map(v -> v.start)
+        );
+        assertArrayEquals(new int[] { 3, 1, 0, 2 }, catalog.ordinalsInVersionOrder());
+    }
+
+    private static FileRepositoryMojo deployed(
+            final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = new FileRepositoryMojo(repository, 1, ScanExecution.sequential());
+        for (final String version : List.of("0.1", "0.2", "0.3", "0.4-SNAPSHOT", "0.9", "1.1")) {
+            mojo.deploy(version, List.of(ConstantsFixture.class));
+        }
+        return mojo;
+    }
+
+    @Test
+    void versionRangesAreExpandedToReleasedVersions(
+            @TempDir final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = deployed(repository);
+
+        final Either<Message, List<String>> expanded =
+                VersionCatalog.expand(mojo, List.of("0.0.1", "[0.2,1.0)", " last:2 ", "0.3"));
+
+        assertEquals(List.of("0.0.1", "0.2", "0.3", "0.9"), expanded.get());
+        assertEquals(2, mojo.versionRangeRequests.get());
+    }
+
+    @Test
+    void lastReleasesPrecedeTheProjectVersion(
+            @TempDir final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = deployed(repository);
+
+        assertEquals(List.of("0.2", "0.3", "0.9"), VersionCatalog.expand(mojo, List.of("last:3")).get());
+        assertEquals(List.of("0.1", "0.2", "0.3", "0.9"), VersionCatalog.expand(mojo, List.of("last:10")).get());
+    }
+
+    @Test
+    void versionRangesAreResolvedOncePerBuild(
+            @TempDir final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = deployed(repository);
+
+        VersionCatalog.expand(mojo, List.of("[0.2,)"));
+        assertEquals(List.of("0.2", "0.3", "0.9", "1.1"), VersionCatalog.expand(mojo, List.of("[0.2,)")).get());
+        assertEquals(1, mojo.versionRangeRequests.get());
+    }
+
+    @Test
+    void invalidVersionRange(
+            @TempDir final Path repository
+    ) throws IOException {
+        final FileRepositoryMojo mojo = deployed(repository);
+
+        final Either<Message, List<String>> expanded = VersionCatalog.expand(mojo, List.of("[0.2"));
+
+        assertTrue(expanded.isLeft());
+        assertTrue(expanded.getLeft().render(mojo).startsWith("VPE-5:"));
+    }
+
+}
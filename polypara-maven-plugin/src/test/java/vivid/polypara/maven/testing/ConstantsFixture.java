@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven.testing;
+
+import vivid.polypara.annotation.Constant;
+
+/**
+ * Class file fixture bearing {@code Constant} fields of each kind of {@code ConstantValue}.
+ */
+public class ConstantsFixture {
+
+    @Constant
+    public static final int INT = 42;
+
+    @Constant
+    public static final long LONG = 42L;
+
+    @Constant
+    public static final float FLOAT = 4.2f;
+
+    @Constant
+    public static final double DOUBLE = 4.2d;
+
+    @Constant(rationale = "A rationale")
+    public static final String STRING = "forty-two";
+
+    @Constant
+    public final Object withoutConstantValue = new Object();
+
+    public static final String NOT_ANNOTATED = "ignored";
+
+    public int method() {
+        return INT + NOT_ANNOTATED.length();
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 The Polypara Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.polypara.maven.testing;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+public class Jars {
+
+    /**
+     * @return the bytes of the class file of the given class
+     */
+    public static byte[] classFileBytes(
+            final Class<?> clazz
+    ) throws IOException {
+        final String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+        try (final InputStream in = clazz.getResourceAsStream(resource)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Writes a Jar file holding the class files of the given classes plus a non-class
+     * resource, storing entries uncompressed when {@code stored} is true and deflating
+     * them otherwise.
+     */
+    public static File jarOf(
+            final Path jarPath,
+            final boolean stored,
+            final List<Class<?>> classes
+    ) throws IOException {
+        final List<Tuple2<String, byte[]>> entries = List.empty();
+        return jarOfEntries(
+                jarPath,
+                stored,
+                classes.foldLeft(entries, (e, clazz) -> e.append(new Tuple2<>(
+                        clazz.getName().replace('.', '/') + ".class",
+                        classFileBytesUnchecked(clazz)
+                )))
+        );
+    }
+
+    /**
+     * Writes a Jar file holding the given entries, named and ordered as given, plus a
+     * non-class resource.
+     */
+    public static File jarOfEntries(
+            final Path jarPath,
+            final boolean stored,
+            final List<Tuple2<String, byte[]>> entries
+    ) throws IOException {
+        try (
+                final OutputStream os = Files.newOutputStream(jarPath);
+                final JarOutputStream jar = new JarOutputStream(os)
+        ) {
+            write(jar, stored, "META-INF/resource.txt", "not a class".getBytes("UTF-8"));
+            for (final Tuple2<String, byte[]> entry : entries) {
+                write(jar, stored, entry._1, entry._2);
+            }
+        }
+        return jarPath.toFile();
+    }
+
+    private static byte[] classFileBytesUnchecked(
+            final Class<?> clazz
+    ) {
+        try {
+            return classFileBytes(clazz);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(
+            final JarOutputStream jar,
+            final boolean stored,
+            final String name,
+            final byte[] bytes
+    ) throws IOException {
+        final JarEntry entry = new JarEntry(name);
+        if (stored) {
+            final CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        jar.putNextEntry(entry);
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+}